@@ -5,12 +5,14 @@ import android.os.Bundle;
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 
+import me.rabrg.chip8.concurrent.ThreadedRunner;
+
 public final class AndroidLauncher extends AndroidApplication {
 
     @Override
     protected void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         final AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
-        initialize(new CHIP8Emulator(), config);
+        initialize(new CHIP8Emulator(new ThreadedRunner()), config);
     }
 }
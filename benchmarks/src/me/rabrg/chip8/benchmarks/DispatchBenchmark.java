@@ -0,0 +1,84 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.CycleTimer;
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Keyboard;
+import me.rabrg.chip8.hardware.Processor;
+
+/**
+ * Compares the instructions per second of the dispatch table against the cascading switch on a fixed ROM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    /**
+     * The number of instructions executed per invocation.
+     */
+    private static final int CYCLES = 10000;
+
+    /**
+     * The ROM to execute.
+     */
+    @Param({"TETRIS", "INVADERS", "BREAKOUT"})
+    public String rom;
+
+    /**
+     * The processor using the dispatch table.
+     */
+    private Processor processor;
+
+    /**
+     * The processor using the cascading switch.
+     */
+    private SwitchProcessor switchProcessor;
+
+    /**
+     * Loads the ROM into fresh processors.
+     *
+     * @throws IOException If the ROM couldn't be read.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        final byte[] bytes = Roms.SOURCE.read(rom);
+        processor = new Processor(new Display(), new Keyboard(), new CycleTimer());
+        processor.loadROM(bytes);
+        switchProcessor = new SwitchProcessor(new Display(), new Keyboard(), new CycleTimer());
+        switchProcessor.loadROM(bytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void dispatchTable() {
+        for (int c = 0; c < CYCLES; c++)
+            processor.execute();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void cascadingSwitch() {
+        for (int c = 0; c < CYCLES; c++)
+            switchProcessor.execute();
+    }
+}
@@ -0,0 +1,99 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Frame;
+
+/**
+ * Measures clearing the display and the work done for every rendered frame: capturing it and finding its changed rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisplayBenchmark {
+
+    /**
+     * A sprite filling a whole row of eight pixels, fifteen rows high.
+     */
+    private static final int[] BLOCK = {
+            0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF
+    };
+
+    /**
+     * The display.
+     */
+    private Display display;
+
+    /**
+     * The frame captured from the display.
+     */
+    private final Frame frame = new Frame();
+
+    /**
+     * Creates a fresh display with a few sprites drawn.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        display = new Display();
+        for (int x = 0; x < Display.WIDTH; x += 16)
+            display.draw(x, x / 4, BLOCK);
+    }
+
+    /**
+     * Clears a display which is already clear, the common case of a ROM clearing every frame.
+     */
+    @Benchmark
+    public void clearEmpty() {
+        display.clear();
+    }
+
+    /**
+     * Draws a sprite and clears the display again.
+     */
+    @Benchmark
+    public void drawAndClear() {
+        display.draw(0, 0, BLOCK);
+        display.clear();
+    }
+
+    /**
+     * Captures the display into a frame, as every runner does once per rendered frame.
+     */
+    @Benchmark
+    public Frame capture() {
+        frame.capture(display);
+        return frame;
+    }
+
+    /**
+     * Finds the rows changed since the frame before.
+     */
+    @Benchmark
+    public int dirtyRows() {
+        return display.getDirtyRows(display.getGeneration() - 1);
+    }
+
+    /**
+     * Hashes the pixels, as done to compare recorded runs.
+     */
+    @Benchmark
+    public long hash() {
+        return display.getHash();
+    }
+}
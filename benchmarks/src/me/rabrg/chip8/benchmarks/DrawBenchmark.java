@@ -0,0 +1,79 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.Display;
+
+/**
+ * Measures drawing sprites of different heights, inside the display and wrapping around both of its edges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawBenchmark {
+
+    /**
+     * The number of rows of the sprite.
+     */
+    @Param({"1", "5", "8", "15"})
+    public int height;
+
+    /**
+     * Whether or not the sprite wraps around the right and bottom edges.
+     */
+    @Param({"false", "true"})
+    public boolean wrap;
+
+    /**
+     * The sprite, every row a different pattern.
+     */
+    private final int[] sprite = new int[15];
+
+    /**
+     * The display.
+     */
+    private Display display;
+
+    /**
+     * The x coordinate of the sprite.
+     */
+    private int x;
+
+    /**
+     * The y coordinate of the sprite.
+     */
+    private int y;
+
+    /**
+     * Creates a fresh display.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        for (int row = 0; row < sprite.length; row++)
+            sprite[row] = 0x81 | row << 3;
+        display = new Display();
+        x = wrap ? Display.WIDTH - 4 : 20;
+        y = wrap ? Display.HEIGHT - height / 2 - 1 : 8;
+    }
+
+    @Benchmark
+    public boolean draw() {
+        return display.draw(x, y, sprite, 0, height);
+    }
+}
@@ -0,0 +1,73 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Machine;
+
+/**
+ * Measures the instructions per second of every engine on the bundled ROMs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /**
+     * The number of instructions executed per invocation.
+     */
+    private static final int CYCLES = 10000;
+
+    /**
+     * The ROM to execute.
+     */
+    @Param({"TETRIS", "INVADERS", "BREAKOUT"})
+    public String rom;
+
+    /**
+     * The engine executing the ROM.
+     */
+    @Param({"INTERPRETER", "BLOCK"})
+    public Engine engine;
+
+    /**
+     * The machine.
+     */
+    private Machine machine;
+
+    /**
+     * Loads the ROM into a fresh machine.
+     *
+     * @throws IOException If the ROM couldn't be read.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        machine = new Machine(Roms.SOURCE);
+        machine.getProcessor().setEngine(engine);
+        machine.load(rom);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void run() {
+        machine.run(CYCLES);
+    }
+}
@@ -0,0 +1,166 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.CycleTimer;
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Keyboard;
+import me.rabrg.chip8.hardware.Processor;
+
+/**
+ * Measures the instructions per second of every family of opcodes, each executed by a ROM which repeats a few opcodes
+ * of the family and jumps back to the start.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstructionBenchmark {
+
+    /**
+     * The number of instructions executed per invocation.
+     */
+    private static final int CYCLES = 10000;
+
+    /**
+     * The number of opcodes of a family before the jump back to the start.
+     */
+    private static final int LENGTH = 0x20;
+
+    /**
+     * The family of opcodes to execute.
+     */
+    @Param({"ARITHMETIC", "IMMEDIATE", "SKIP", "SUBROUTINE", "MEMORY", "DRAW", "TIMER", "RANDOM"})
+    public Family family;
+
+    /**
+     * The engine executing the opcodes.
+     */
+    @Param({"INTERPRETER", "BLOCK"})
+    public Engine engine;
+
+    /**
+     * The processor.
+     */
+    private Processor processor;
+
+    /**
+     * Loads the ROM of the family into a fresh processor.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        processor = new Processor(new Display(), new Keyboard(), new CycleTimer());
+        processor.setEngine(engine);
+        processor.loadROM(family.rom());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void run() {
+        processor.run(CYCLES);
+    }
+
+    /**
+     * A family of opcodes.
+     */
+    public enum Family {
+
+        /**
+         * 8XY4, 8XY5, 8XY6, 8XY1, 8XY2, 8XY3 and 8XYE.
+         */
+        ARITHMETIC(0x8014, 0x8125, 0x8236, 0x8341, 0x8452, 0x8563, 0x867E),
+
+        /**
+         * 6XNN, 7XNN, ANNN and FX1E.
+         */
+        IMMEDIATE(0x6012, 0x7103, 0xA300, 0xF21E),
+
+        /**
+         * 3XNN, 4XNN and 9XY0 not skipping, then 5XY0 skipping over a 6XNN.
+         */
+        SKIP(0x3001, 0x4000, 0x9010, 0x5010, 0x6000),
+
+        /**
+         * 2NNN calling a subroutine of 00EE, which is placed after the jump back to the start.
+         */
+        SUBROUTINE(0x2000 | 0x200 + LENGTH * 2 + 2),
+
+        /**
+         * ANNN, FX55, FX65 and FX33 on memory outside the ROM.
+         */
+        MEMORY(0xA800, 0xF355, 0xF365, 0xF033),
+
+        /**
+         * ANNN of a font character and DXYN of it.
+         */
+        DRAW(0xA000, 0xD015),
+
+        /**
+         * FX15, FX07 and FX18.
+         */
+        TIMER(0xF015, 0xF007, 0xF018),
+
+        /**
+         * CXNN.
+         */
+        RANDOM(0xC0FF, 0xC1FF);
+
+        /**
+         * The opcodes repeated by the ROM.
+         */
+        private final int[] opcodes;
+
+        /**
+         * Constructs a new family repeating the specified opcodes.
+         *
+         * @param opcodes The opcodes.
+         */
+        Family(final int... opcodes) {
+            this.opcodes = opcodes;
+        }
+
+        /**
+         * Builds the ROM of the family: the opcodes repeated, a jump back to the start and a return for the subroutine
+         * family.
+         *
+         * @return The ROM bytes.
+         */
+        byte[] rom() {
+            final byte[] rom = new byte[LENGTH * 2 + 4];
+            for (int n = 0; n < LENGTH; n++)
+                put(rom, n, opcodes[n % opcodes.length]);
+            put(rom, LENGTH, 0x1200);
+            put(rom, LENGTH + 1, 0x00EE);
+            return rom;
+        }
+
+        /**
+         * Writes the specified opcode as the specified instruction of the specified ROM.
+         *
+         * @param rom    The ROM bytes.
+         * @param n      The index of the instruction.
+         * @param opcode The opcode.
+         */
+        private static void put(final byte[] rom, final int n, final int opcode) {
+            rom[n * 2] = (byte) (opcode >>> 8);
+            rom[n * 2 + 1] = (byte) opcode;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package me.rabrg.chip8.benchmarks;
+
+import java.io.File;
+
+import me.rabrg.chip8.hardware.RomSource;
+import me.rabrg.chip8.headless.FileRomSource;
+
+/**
+ * Locates the bundled ROMs for the benchmarks.
+ */
+final class Roms {
+
+    /**
+     * The source of the bundled ROMs, overridable with the chip8.roms system property.
+     */
+    static final RomSource SOURCE = new FileRomSource(new File(System.getProperty("chip8.roms", "../android/assets")));
+
+    /**
+     * Prevents instantiation.
+     */
+    private Roms() {
+    }
+}
@@ -0,0 +1,79 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.SaveState;
+import me.rabrg.chip8.hardware.TransitionCache;
+
+/**
+ * Measures a remembered frame restored from the memo followed by a frame executed on the block engine, the pattern of
+ * a search replaying a known prefix and then exploring, including the cost of any blocks the restore discards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransitionCacheBenchmark {
+
+    /**
+     * The ROM to execute.
+     */
+    @Param({"TETRIS", "INVADERS", "BREAKOUT"})
+    public String rom;
+
+    /**
+     * The machine.
+     */
+    private Machine machine;
+
+    /**
+     * The memo, remembering the frame from the start state.
+     */
+    private TransitionCache cache;
+
+    /**
+     * The state the remembered frame starts from.
+     */
+    private SaveState start;
+
+    /**
+     * Loads the ROM into a fresh machine on the block engine and remembers a frame.
+     *
+     * @throws IOException If the ROM couldn't be read.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        machine = new Machine(Roms.SOURCE);
+        machine.getProcessor().setEngine(Engine.BLOCK);
+        machine.load(rom);
+        machine.run(machine.getTimer().getPeriod() * 60);
+        start = SaveState.capture(machine);
+        cache = new TransitionCache(1 << 20);
+        cache.step(machine, 0);
+    }
+
+    @Benchmark
+    public void hitThenRun() {
+        start.restore(machine);
+        cache.step(machine, 0);
+        machine.run(machine.getTimer().getPeriod());
+    }
+}
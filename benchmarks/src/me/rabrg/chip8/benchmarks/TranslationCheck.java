@@ -0,0 +1,139 @@
+package me.rabrg.chip8.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.RomSource;
+import me.rabrg.chip8.hardware.SaveState;
+import me.rabrg.chip8.tools.Translator;
+
+/**
+ * Checks the {@link Engine#AOT} engine against the interpreter, comparing the save states of both machines after every
+ * slice of cycles, on the bundled ROMs and on ROMs shaped to hit the edges of the translation: a block cut at its
+ * maximum length and a ROM whose last instruction doesn't end a block.
+ */
+public final class TranslationCheck {
+
+    /**
+     * The number of cycles executed between comparisons.
+     */
+    private static final int SLICE = 97;
+
+    /**
+     * The number of slices executed per ROM.
+     */
+    private static final int SLICES = 200;
+
+    /**
+     * The seed of the random numbers of both machines.
+     */
+    private static final long SEED = 0x5EED;
+
+    /**
+     * Prevents instantiation.
+     */
+    private TranslationCheck() {
+    }
+
+    /**
+     * Runs the check, exiting with a non-zero status if any ROM diverges.
+     *
+     * @param args The directory to cache compiled translations in, or none for a temporary directory.
+     * @throws IOException If a ROM couldn't be read or translated.
+     */
+    public static void main(final String[] args) throws IOException {
+        final Map<String, byte[]> roms = new LinkedHashMap<String, byte[]>();
+        final byte[] longBlock = new byte[71 * 2];
+        for (int index = 0; index < 70; index++) {
+            longBlock[index * 2] = 0x70;
+            longBlock[index * 2 + 1] = 0x01;
+        }
+        longBlock[140] = 0x12;
+        longBlock[141] = 0x00;
+        roms.put("LONG_BLOCK", longBlock);
+        roms.put("FALL_THROUGH", new byte[] {0x60, 0x05, 0x71, 0x01});
+        for (final String name : new String[] {"TETRIS", "INVADERS", "BREAKOUT"})
+            roms.put(name, Roms.SOURCE.read(name));
+
+        final File directory = args.length > 0 ? new File(args[0])
+                : new File(System.getProperty("java.io.tmpdir"), "chip8-translation-check");
+        final Translator translator = new Translator(directory);
+        int failures = 0;
+        for (final Map.Entry<String, byte[]> rom : roms.entrySet()) {
+            final String divergence = compare(rom.getValue(), translator);
+            System.out.println(rom.getKey() + ": " + (divergence == null ? "OK" : divergence));
+            if (divergence != null)
+                failures++;
+        }
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Executes the specified ROM with the interpreter and its translation side by side.
+     *
+     * @param rom        The ROM bytes.
+     * @param translator The translator.
+     * @return The first divergence, or null if the machines never diverged.
+     * @throws IOException If the ROM couldn't be translated.
+     */
+    private static String compare(final byte[] rom, final Translator translator) throws IOException {
+        final Machine interpreted = machine(rom);
+        final Machine translated = machine(rom);
+        translated.getProcessor().setEngine(Engine.AOT);
+        translated.getProcessor().setTranslation(translator.translate(rom));
+        for (int slice = 0; slice < SLICES; slice++) {
+            final RuntimeException expected = run(interpreted);
+            final RuntimeException actual = run(translated);
+            if ((expected == null) != (actual == null))
+                return "cycle " + slice * SLICE + ": interpreter threw " + expected + ", AOT threw " + actual;
+            if (expected != null)
+                return null;
+            if (!Arrays.equals(SaveState.capture(interpreted).toByteArray(),
+                    SaveState.capture(translated).toByteArray()))
+                return "cycle " + (slice + 1) * SLICE + ": interpreter pc="
+                        + Integer.toHexString(interpreted.getProcessor().getProgramCounter()) + ", AOT pc="
+                        + Integer.toHexString(translated.getProcessor().getProgramCounter());
+        }
+        return null;
+    }
+
+    /**
+     * Creates a machine with the specified ROM loaded and a fixed seed.
+     *
+     * @param rom The ROM bytes.
+     * @return The machine.
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    private static Machine machine(final byte[] rom) throws IOException {
+        final Machine machine = new Machine(new RomSource() {
+            @Override
+            public byte[] read(final String name) {
+                return rom.clone();
+            }
+        });
+        machine.getProcessor().setSeed(SEED);
+        machine.load("ROM");
+        return machine;
+    }
+
+    /**
+     * Executes a slice of cycles on the specified machine.
+     *
+     * @param machine The machine.
+     * @return The exception the machine threw, or null if it didn't.
+     */
+    private static RuntimeException run(final Machine machine) {
+        try {
+            machine.run(SLICE);
+            return null;
+        } catch (final RuntimeException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package me.rabrg.chip8.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.RomSource;
+
+/**
+ * Executes the sprite-heavy paths which must not allocate. The verifyZeroAllocation task fails the build if the gc
+ * profiler reports any of these above zero bytes per instruction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZeroAllocationBenchmark {
+
+    /**
+     * The number of instructions executed per invocation.
+     */
+    private static final int CYCLES = 10000;
+
+    /**
+     * A ROM which draws a 15 row sprite every other instruction: A000 D01F 7001 1202.
+     */
+    private static final byte[] DRAW_LOOP = {
+            (byte) 0xA0, 0x00, (byte) 0xD0, 0x1F, 0x70, 0x01, 0x12, 0x02
+    };
+
+    /**
+     * The ROM to execute.
+     */
+    @Param({"DRAW_LOOP", "INVADERS", "BREAKOUT"})
+    public String rom;
+
+    /**
+     * The engine executing the ROM.
+     */
+    @Param({"INTERPRETER", "BLOCK"})
+    public Engine engine;
+
+    /**
+     * The machine.
+     */
+    private Machine machine;
+
+    /**
+     * Loads the ROM into a fresh machine.
+     *
+     * @throws IOException If the ROM couldn't be read.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        machine = new Machine(new RomSource() {
+            @Override
+            public byte[] read(final String name) throws IOException {
+                return name.equals("DRAW_LOOP") ? DRAW_LOOP : Roms.SOURCE.read(name);
+            }
+        });
+        machine.getProcessor().setEngine(engine);
+        machine.load(rom);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void run() {
+        machine.run(CYCLES);
+    }
+}
@@ -2,88 +2,117 @@ package me.rabrg.chip8;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
 
-import me.rabrg.chip8.hardware.Display;
-import me.rabrg.chip8.hardware.Keyboard;
-import me.rabrg.chip8.hardware.Processor;
+import java.io.IOException;
+
+import me.rabrg.chip8.hardware.Clock;
+import me.rabrg.chip8.hardware.CycleTimer;
+import me.rabrg.chip8.hardware.Frame;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.Metrics;
+import me.rabrg.chip8.hardware.Runner;
 
 public final class CHIP8Emulator extends ApplicationAdapter {
 
     /**
-     * The processor.
+     * The runner executing the machine.
+     */
+    private final Runner runner;
+
+    /**
+     * The machine.
      */
-    private Processor processor;
+    private Machine machine;
 
     /**
-     * The display.
+     * The renderer for the display of the machine.
      */
-    private Display display;
+    private DisplayRenderer renderer;
 
     /**
-     * The keyboard.
+     * Constructs a new emulator executing the machine with the specified runner.
+     *
+     * @param runner The runner.
      */
-    private Keyboard keyboard;
+    public CHIP8Emulator(final Runner runner) {
+        this.runner = runner;
+    }
 
     /**
-     * The time the cycle started in milliseconds.
+     * Constructs a new emulator executing the machine on the render thread.
      */
-    private long cycleStart = System.currentTimeMillis();
+    public CHIP8Emulator() {
+        this(new FrameRunner());
+    }
 
     @Override
     public void create() {
-        processor = new Processor(this);
-        display = new Display();
-        keyboard = new Keyboard();
+        machine = new Machine(new GdxRomSource(), new CycleTimer(runner.getCyclesPerFrame()));
+        renderer = new DisplayRenderer();
 
-        processor.loadROM("BREAKOUT");
+        try {
+            machine.load("BREAKOUT");
+        } catch (final IOException e) {
+            Gdx.app.error("CHIP8Emulator", e.getMessage());
+        }
 
-        Gdx.input.setInputProcessor(keyboard);
+        machine.getKeyboard().setClock(new Clock() {
+            @Override
+            public long nanoTime() {
+                return TimeUtils.nanoTime();
+            }
+        });
+        Gdx.input.setInputProcessor(new GdxKeyboard(machine.getKeyboard()));
+        Gdx.graphics.setContinuousRendering(false);
+        runner.setFrameListener(new Runnable() {
+            @Override
+            public void run() {
+                Gdx.graphics.requestRendering();
+            }
+        });
+        runner.start(machine);
+        // the display may not change for a while, so draw the first frame without waiting for one
+        Gdx.graphics.requestRendering();
     }
 
     @Override
     public void render() {
-        processor.execute();
-        display.render();
-        sleep(Processor.CYCLE_RATE);
+        final Frame frame = runner.getFrame();
+        final long start = Metrics.ENABLED ? TimeUtils.nanoTime() : 0;
+        renderer.render(frame);
+        if (Metrics.ENABLED)
+            machine.getProcessor().getMetrics().rendered(TimeUtils.nanoTime() - start);
     }
 
     @Override
     public void resize(final int width, final int height) {
-        display.resize(width, height);
+        renderer.resize(width, height);
     }
 
-    /**
-     * Sleeps if necessary to match the specified cycle rate.
-     *
-     * @param cycleRate The cycle rate.
-     */
-    private void sleep(final int cycleRate) {
-        long cycleDifference = System.currentTimeMillis() - cycleStart; // TODO: nanosecond precision
-        if (cycleDifference < cycleRate) {
-            try {
-                Thread.sleep(cycleRate - cycleDifference);
-            } catch (final InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        cycleStart = System.currentTimeMillis();
+    @Override
+    public void pause() {
+        runner.stop();
     }
 
-    /**
-     * Gets the keyboard.
-     *
-     * @return The keyboard.
-     */
-    public Keyboard getKeyboard() {
-        return keyboard;
+    @Override
+    public void resume() {
+        runner.start(machine);
+        Gdx.graphics.requestRendering();
+    }
+
+    @Override
+    public void dispose() {
+        runner.stop();
+        renderer.dispose();
     }
 
     /**
-     * Gets the display.
+     * Gets the machine.
      *
-     * @return The display.
+     * @return The machine.
      */
-    public Display getDisplay() {
-        return display;
+    public Machine getMachine() {
+        return machine;
     }
 }
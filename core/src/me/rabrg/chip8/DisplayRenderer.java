@@ -0,0 +1,226 @@
+package me.rabrg.chip8;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Frame;
+
+/**
+ * Renders frames of the display as a single texture drawn as one scaled quad. Only the rows which have changed since
+ * the last frame are redrawn into the texture, and unchanged frames upload nothing. The emulator renders on demand,
+ * when the runner publishes a new frame, so a static screen isn't drawn at all while the machine runs on its own
+ * thread.
+ */
+public final class DisplayRenderer {
+
+    /**
+     * The default background color.
+     */
+    private static final Color BACKGROUND = new Color(0.13f, 0.55f, 0.55f, 1f);
+
+    /**
+     * The default foreground color.
+     */
+    private static final Color FOREGROUND = new Color(0.42f, 0.81f, 0.80f, 1f);
+
+    /**
+     * The vertex shader for the scanline effect, matching the attributes of the sprite batch.
+     */
+    private static final String SCANLINE_VERTEX = ""
+            + "attribute vec4 a_position;\n"
+            + "attribute vec4 a_color;\n"
+            + "attribute vec2 a_texCoord0;\n"
+            + "uniform mat4 u_projTrans;\n"
+            + "varying vec4 v_color;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "void main() {\n"
+            + "    v_color = a_color;\n"
+            + "    v_texCoords = a_texCoord0;\n"
+            + "    gl_Position = u_projTrans * a_position;\n"
+            + "}\n";
+
+    /**
+     * The fragment shader for the scanline effect, darkening the bottom of every row of pixels.
+     */
+    private static final String SCANLINE_FRAGMENT = ""
+            + "#ifdef GL_ES\n"
+            + "precision mediump float;\n"
+            + "#endif\n"
+            + "varying vec4 v_color;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "void main() {\n"
+            + "    vec4 texel = texture2D(u_texture, v_texCoords);\n"
+            + "    float shade = fract(v_texCoords.y * " + Display.HEIGHT + ".0) > 0.75 ? 0.6 : 1.0;\n"
+            + "    gl_FragColor = vec4(texel.rgb * shade, texel.a) * v_color;\n"
+            + "}\n";
+
+    /**
+     * The pixels as last uploaded to the texture.
+     */
+    private final long[] uploaded = new long[Display.HEIGHT];
+
+    /**
+     * The pixmap holding the colored pixels of the display.
+     */
+    private final Pixmap pixmap = new Pixmap(Display.WIDTH, Display.HEIGHT, Pixmap.Format.RGBA8888);
+
+    /**
+     * The texture the pixmap is uploaded to.
+     */
+    private final Texture texture;
+
+    /**
+     * The sprite batch for drawing the texture.
+     */
+    private final SpriteBatch batch = new SpriteBatch();
+
+    /**
+     * The camera for the screen coordinates.
+     */
+    private final OrthographicCamera camera = new OrthographicCamera();
+
+    /**
+     * The shader for the scanline effect, or null if it isn't enabled.
+     */
+    private ShaderProgram scanlines;
+
+    /**
+     * The background color as RGBA8888.
+     */
+    private int background = Color.rgba8888(BACKGROUND);
+
+    /**
+     * The foreground color as RGBA8888.
+     */
+    private int foreground = Color.rgba8888(FOREGROUND);
+
+    /**
+     * The generation of the frame last uploaded to the texture.
+     */
+    private int generation;
+
+    /**
+     * Whether or not the pixmap has to be redrawn regardless of the pixels.
+     */
+    private boolean stale = true;
+
+    /**
+     * The scale of the display.
+     */
+    private int scale;
+
+    /**
+     * The y coordinate of the bottom of the display.
+     */
+    private int bottom;
+
+    /**
+     * Constructs a new renderer.
+     */
+    public DisplayRenderer() {
+        Pixmap.setBlending(Pixmap.Blending.None);
+        texture = new Texture(pixmap);
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        batch.disableBlending();
+    }
+
+    /**
+     * Renders the specified frame.
+     *
+     * @param frame The frame.
+     */
+    public void render(final Frame frame) {
+        upload(frame);
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        batch.draw(texture, 0, bottom, Display.WIDTH * scale, Display.HEIGHT * scale);
+        batch.end();
+    }
+
+    /**
+     * Redraws the changed rows of the pixmap and uploads it to the texture if the specified frame differs from the last
+     * upload.
+     *
+     * @param frame The frame.
+     */
+    private void upload(final Frame frame) {
+        if (frame.getGeneration() == generation && !stale)
+            return;
+
+        for (int y = 0; y < Display.HEIGHT; y++) {
+            final long row = frame.getRow(y);
+            if (row == uploaded[y] && !stale)
+                continue;
+            for (int x = 0; x < Display.WIDTH; x++)
+                pixmap.drawPixel(x, y, (row << x) < 0 ? foreground : background);
+            uploaded[y] = row;
+        }
+        texture.draw(pixmap, 0, 0);
+        generation = frame.getGeneration();
+        stale = false;
+    }
+
+    /**
+     * Sets the colors of the unset and set pixels.
+     *
+     * @param background The background color.
+     * @param foreground The foreground color.
+     */
+    public void setPalette(final Color background, final Color foreground) {
+        this.background = Color.rgba8888(background);
+        this.foreground = Color.rgba8888(foreground);
+        stale = true;
+    }
+
+    /**
+     * Enables or disables the scanline effect.
+     *
+     * @param enabled Whether or not the effect is enabled.
+     */
+    public void setScanlines(final boolean enabled) {
+        if (enabled && scanlines == null) {
+            ShaderProgram.pedantic = false;
+            scanlines = new ShaderProgram(SCANLINE_VERTEX, SCANLINE_FRAGMENT);
+            if (!scanlines.isCompiled())
+                throw new IllegalStateException("Couldn't compile scanline shader: " + scanlines.getLog());
+            batch.setShader(scanlines);
+        } else if (!enabled && scanlines != null) {
+            batch.setShader(null);
+            scanlines.dispose();
+            scanlines = null;
+        }
+    }
+
+    /**
+     * Resizes the display to the specified width and height.
+     *
+     * @param width  The width.
+     * @param height The height.
+     */
+    public void resize(final int width, final int height) {
+        scale = Math.min(width / Display.WIDTH, height / Display.HEIGHT);
+        bottom = height - Display.HEIGHT * scale;
+        camera.setToOrtho(false, width, height);
+        camera.update();
+    }
+
+    /**
+     * Releases the resources of the renderer.
+     */
+    public void dispose() {
+        setScanlines(false);
+        batch.dispose();
+        texture.dispose();
+        pixmap.dispose();
+    }
+}
@@ -0,0 +1,112 @@
+package me.rabrg.chip8;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import me.rabrg.chip8.hardware.Frame;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.Metrics;
+import me.rabrg.chip8.hardware.Runner;
+
+/**
+ * Runs the machine on the render thread, executing every 60 Hz timeslice which has come due since the last frame. Used
+ * where threads aren't available.
+ */
+public final class FrameRunner implements Runner {
+
+    /**
+     * The most timeslices executed in one frame, so a stalled frame doesn't cause a burst of catching up.
+     */
+    private static final int MAX_SLICES = 4;
+
+    /**
+     * The length of a timeslice in nanoseconds.
+     */
+    private static final long SLICE = 1000000000L / TIMER_RATE;
+
+    /**
+     * The frame handed to the renderer.
+     */
+    private final Frame frame = new Frame();
+
+    /**
+     * The number of instructions executed per timeslice.
+     */
+    private final int cyclesPerFrame;
+
+    /**
+     * The machine being executed.
+     */
+    private Machine machine;
+
+    /**
+     * The time the next timeslice is due in nanoseconds.
+     */
+    private long deadline;
+
+    /**
+     * The listener called whenever a frame has to be rendered, or null if there is none.
+     */
+    private Runnable frameListener;
+
+    /**
+     * Constructs a new runner executing the specified number of instructions per second.
+     *
+     * @param speed The number of instructions per second.
+     */
+    public FrameRunner(final int speed) {
+        cyclesPerFrame = Math.max(1, speed / TIMER_RATE);
+    }
+
+    /**
+     * Constructs a new runner executing the default number of instructions per second.
+     */
+    public FrameRunner() {
+        this(DEFAULT_SPEED);
+    }
+
+    @Override
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    @Override
+    public void start(final Machine machine) {
+        this.machine = machine;
+        machine.getProcessor().getMetrics().setTargetSpeed(cyclesPerFrame * TIMER_RATE);
+        deadline = TimeUtils.nanoTime();
+    }
+
+    @Override
+    public Frame getFrame() {
+        final Machine machine = this.machine;
+        // stopped, such as while paused by a backend which keeps rendering
+        if (machine == null)
+            return frame;
+        final long now = TimeUtils.nanoTime();
+        int slices = 0;
+        while (deadline - now <= 0 && slices++ < MAX_SLICES) {
+            if (Metrics.ENABLED)
+                machine.getProcessor().getMetrics().slice(now - deadline);
+            machine.run(cyclesPerFrame);
+            deadline += SLICE;
+        }
+        if (deadline - now <= 0)
+            deadline = now + SLICE;
+        if (frame.getGeneration() != machine.getDisplay().getGeneration())
+            frame.capture(machine.getDisplay());
+        // the machine only runs while frames are rendered
+        if (frameListener != null)
+            frameListener.run();
+        return frame;
+    }
+
+    @Override
+    public void setFrameListener(final Runnable listener) {
+        frameListener = listener;
+    }
+
+    @Override
+    public void stop() {
+        machine = null;
+    }
+}
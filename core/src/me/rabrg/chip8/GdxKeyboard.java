@@ -0,0 +1,82 @@
+package me.rabrg.chip8;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+
+import me.rabrg.chip8.hardware.Keyboard;
+
+// TODO: Mobile device input
+public final class GdxKeyboard extends InputAdapter {
+
+    /**
+     * The keyboard receiving the key events.
+     */
+    private final Keyboard keyboard;
+
+    /**
+     * Constructs a new input adapter for the specified keyboard.
+     *
+     * @param keyboard The keyboard.
+     */
+    public GdxKeyboard(final Keyboard keyboard) {
+        this.keyboard = keyboard;
+    }
+
+    @Override
+    public boolean keyDown(final int keycode) {
+        final int hex = getHex(keycode);
+        if (hex != -1)
+            keyboard.press(hex);
+        return true;
+    }
+
+    @Override
+    public boolean keyUp(final int keycode) {
+        final int hex = getHex(keycode);
+        if (hex != -1)
+            keyboard.release(hex);
+        return true;
+    }
+
+    /**
+     * Gets the hex value of the specified libgdx keycode.
+     *
+     * @param keycode The libgdx keycode.
+     * @return The hex value.
+     */
+    private int getHex(final int keycode) {
+        if (keycode == Input.Keys.NUM_1)
+            return 0x0;
+        if (keycode == Input.Keys.NUM_2)
+            return 0x1;
+        if (keycode == Input.Keys.NUM_3)
+            return 0x2;
+        if (keycode == Input.Keys.NUM_4)
+            return 0x3;
+        if (keycode == Input.Keys.Q)
+            return 0x4;
+        if (keycode == Input.Keys.W)
+            return 0x5;
+        if (keycode == Input.Keys.E)
+            return 0x6;
+        if (keycode == Input.Keys.R)
+            return 0x7;
+        if (keycode == Input.Keys.A)
+            return 0x8;
+        if (keycode == Input.Keys.S)
+            return 0x9;
+        if (keycode == Input.Keys.D)
+            return 0xA;
+        if (keycode == Input.Keys.F)
+            return 0xB;
+        if (keycode == Input.Keys.Z)
+            return 0xC;
+        if (keycode == Input.Keys.X)
+            return 0xD;
+        if (keycode == Input.Keys.C)
+            return 0xE;
+        if (keycode == Input.Keys.V)
+            return 0xF;
+        return -1;
+    }
+}
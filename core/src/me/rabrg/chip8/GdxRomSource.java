@@ -0,0 +1,23 @@
+package me.rabrg.chip8;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+
+import me.rabrg.chip8.hardware.RomSource;
+
+/**
+ * Reads ROMs from the libgdx internal assets.
+ */
+public final class GdxRomSource implements RomSource {
+
+    @Override
+    public byte[] read(final String name) throws IOException {
+        try {
+            return Gdx.files.internal(name).readBytes();
+        } catch (final GdxRuntimeException e) {
+            throw new IOException("Couldn't load ROM " + name, e);
+        }
+    }
+}
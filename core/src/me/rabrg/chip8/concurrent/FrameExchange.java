@@ -0,0 +1,59 @@
+package me.rabrg.chip8.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Frame;
+
+/**
+ * Hands frames from one writer thread to one reader thread without locking. Three frames rotate between the writer,
+ * the reader and the middle slot, so neither thread ever waits for or tears a frame the other is using.
+ */
+final class FrameExchange {
+
+    /**
+     * The flag in the state marking the middle frame as newer than the reader's.
+     */
+    private static final int FRESH = 0x4;
+
+    /**
+     * The three frames.
+     */
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+
+    /**
+     * The index of the middle frame and the fresh flag.
+     */
+    private final AtomicInteger state = new AtomicInteger(1);
+
+    /**
+     * The index of the frame owned by the writer.
+     */
+    private int back = 0;
+
+    /**
+     * The index of the frame owned by the reader.
+     */
+    private int front = 2;
+
+    /**
+     * Captures the specified display and makes it the newest frame. Called from the writer thread.
+     *
+     * @param display The display.
+     */
+    void publish(final Display display) {
+        frames[back].capture(display);
+        back = state.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Gets the newest frame. Called from the reader thread, and only valid until the next call.
+     *
+     * @return The frame.
+     */
+    Frame take() {
+        if ((state.get() & FRESH) != 0)
+            front = state.getAndSet(front) & ~FRESH;
+        return frames[front];
+    }
+}
@@ -0,0 +1,200 @@
+package me.rabrg.chip8.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Frame;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.Metrics;
+import me.rabrg.chip8.hardware.Processor;
+import me.rabrg.chip8.hardware.Runner;
+import me.rabrg.chip8.headless.FrameRecorder;
+
+/**
+ * Runs the machine on its own thread, executing a fixed number of instructions per 60 Hz timeslice on a
+ * {@link System#nanoTime()} schedule, or as fast as possible when unthrottled. Frames are handed to the render thread
+ * through a lock-free exchange, so the emulation speed doesn't depend on the render rate. While the processor is idle,
+ * waiting for a key with its timers stopped, the thread parks until a key is pressed.
+ */
+public final class ThreadedRunner implements Runner, Runnable {
+
+    /**
+     * The speed which runs the machine as fast as possible.
+     */
+    public static final int UNTHROTTLED = 0;
+
+    /**
+     * The length of a timeslice in nanoseconds.
+     */
+    private static final long SLICE = 1000000000L / TIMER_RATE;
+
+    /**
+     * How far behind schedule the runner may fall before it gives up catching up, in nanoseconds.
+     */
+    private static final long MAX_LAG = SLICE * 4;
+
+    /**
+     * The exchange handing frames to the render thread.
+     */
+    private final FrameExchange exchange = new FrameExchange();
+
+    /**
+     * Whether or not the runner sleeps to match the speed.
+     */
+    private final boolean throttled;
+
+    /**
+     * The number of instructions executed per timeslice.
+     */
+    private final int cyclesPerFrame;
+
+    /**
+     * The machine being executed.
+     */
+    private Machine machine;
+
+    /**
+     * The thread executing the machine.
+     */
+    private Thread thread;
+
+    /**
+     * The recorder capturing every timeslice, or null if the frames aren't recorded.
+     */
+    private volatile FrameRecorder recorder;
+
+    /**
+     * The listener called whenever a new frame is published, or null if there is none.
+     */
+    private volatile Runnable frameListener;
+
+    /**
+     * Whether or not the runner is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructs a new runner executing the specified number of instructions per second, or {@link #UNTHROTTLED}.
+     *
+     * @param speed The number of instructions per second.
+     */
+    public ThreadedRunner(final int speed) {
+        if (speed < 0)
+            throw new IllegalArgumentException("speed must not be negative: " + speed);
+        throttled = speed != UNTHROTTLED;
+        cyclesPerFrame = Math.max(1, (throttled ? speed : DEFAULT_SPEED) / TIMER_RATE);
+    }
+
+    /**
+     * Constructs a new runner executing the default number of instructions per second.
+     */
+    public ThreadedRunner() {
+        this(DEFAULT_SPEED);
+    }
+
+    @Override
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    @Override
+    public void start(final Machine machine) {
+        if (thread != null)
+            throw new IllegalStateException("Already running");
+        this.machine = machine;
+        machine.getProcessor().getMetrics().setTargetSpeed(throttled ? cyclesPerFrame * TIMER_RATE : 0);
+        running = true;
+        thread = new Thread(this, "chip8-cpu");
+        thread.setDaemon(true);
+        final Thread wakeup = thread;
+        machine.getKeyboard().setListener(new Runnable() {
+            @Override
+            public void run() {
+                LockSupport.unpark(wakeup);
+            }
+        });
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        final Processor processor = machine.getProcessor();
+        final Display display = machine.getDisplay();
+        final Metrics metrics = processor.getMetrics();
+        int published = display.getGeneration();
+        publish(display);
+        long deadline = System.nanoTime();
+        while (running) {
+            if (processor.isIdle()) {
+                while (running && processor.isIdle())
+                    LockSupport.park(this);
+                deadline = System.nanoTime();
+            }
+            machine.run(cyclesPerFrame);
+            final FrameRecorder recorder = this.recorder;
+            if (recorder != null)
+                recorder.capture(display);
+            if (display.getGeneration() != published) {
+                published = display.getGeneration();
+                publish(display);
+            }
+            if (throttled) {
+                deadline += SLICE;
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0 && running)
+                    LockSupport.parkNanos(remaining);
+                if (Metrics.ENABLED)
+                    metrics.slice(-remaining);
+                if (remaining < -MAX_LAG)
+                    deadline = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Sets the recorder capturing the display after every timeslice. The recorder is closed by the caller once the
+     * runner has stopped.
+     *
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void setRecorder(final FrameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Publishes the current frame of the specified display and notifies the frame listener.
+     *
+     * @param display The display.
+     */
+    private void publish(final Display display) {
+        exchange.publish(display);
+        final Runnable listener = frameListener;
+        if (listener != null)
+            listener.run();
+    }
+
+    @Override
+    public void setFrameListener(final Runnable listener) {
+        frameListener = listener;
+    }
+
+    @Override
+    public Frame getFrame() {
+        return exchange.take();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread == null)
+            return;
+        machine.getKeyboard().setListener(null);
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+}
@@ -0,0 +1,635 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * Many copies of one ROM stepped in lockstep, with the state of every instance stored in primitive arrays indexed by
+ * instance rather than in separate processors. Every step first fetches and decodes the next opcode of every instance,
+ * grouping the instances by instruction, then executes each instruction once across its whole group in a tight loop.
+ * Every instance has its own keypad state, set by the caller before each step. An instance overflowing or underflowing
+ * its stack, where a {@link Processor} would throw, halts on the faulting instruction until it's reset, leaving the
+ * other instances running.
+ */
+public final class BatchMachine {
+
+    /**
+     * The number of registers and stack entries of every instance.
+     */
+    private static final int REGISTERS = 0x10;
+
+    /**
+     * The number of instances.
+     */
+    private final int size;
+
+    /**
+     * The number of cycles between timer updates.
+     */
+    private final int cyclesPerFrame;
+
+    /**
+     * The memory of every instance, one after another.
+     */
+    private final byte[] memory;
+
+    /**
+     * The memory of an instance after the ROM is loaded, with the font and the ROM.
+     */
+    private final byte[] image = new byte[Memory.SIZE];
+
+    /**
+     * The registers V0 to VF of every instance, one after another.
+     */
+    private final int[] register;
+
+    /**
+     * The stacks of every instance, one after another.
+     */
+    private final int[] stack;
+
+    /**
+     * The program counters.
+     */
+    private final int[] pc;
+
+    /**
+     * The address pointers.
+     */
+    private final int[] i;
+
+    /**
+     * The stack pointers.
+     */
+    private final int[] sp;
+
+    /**
+     * The delay timers.
+     */
+    private final int[] dt;
+
+    /**
+     * The sound timers.
+     */
+    private final int[] st;
+
+    /**
+     * The register waiting for a key press by opcode FX0A, or -1 if the instance isn't waiting.
+     */
+    private final int[] waiting;
+
+    /**
+     * The keys held down, bit n set if key n is down.
+     */
+    private final int[] keys;
+
+    /**
+     * The key pressed last.
+     */
+    private final int[] lastPressed;
+
+    /**
+     * Whether or not a key has been pressed since the last FX0A.
+     */
+    private final boolean[] pressed;
+
+    /**
+     * Whether or not every instance has halted on a stack fault.
+     */
+    private final boolean[] halted;
+
+    /**
+     * The displays.
+     */
+    private final Display[] displays;
+
+    /**
+     * The opcode fetched by every instance this step.
+     */
+    private final int[] opcodes;
+
+    /**
+     * The instances executing every instruction this step, a row of instances per instruction.
+     */
+    private final int[] groups;
+
+    /**
+     * The number of instances executing every instruction this step.
+     */
+    private final int[] counts = new int[Instruction.COUNT];
+
+    /**
+     * The SplitMix64 random number states of every instance for opcode CXNN.
+     */
+    private final long[] random;
+
+    /**
+     * The cycles elapsed since the last timer update.
+     */
+    private int tick;
+
+    /**
+     * Constructs a new batch of the specified number of instances updating their timers every specified number of
+     * cycles.
+     *
+     * @param size           The number of instances.
+     * @param cyclesPerFrame The number of cycles between timer updates.
+     */
+    public BatchMachine(final int size, final int cyclesPerFrame) {
+        if (size <= 0 || cyclesPerFrame <= 0)
+            throw new IllegalArgumentException("size and cyclesPerFrame must be positive: " + size + ", "
+                    + cyclesPerFrame);
+        this.size = size;
+        this.cyclesPerFrame = cyclesPerFrame;
+        memory = new byte[size * Memory.SIZE];
+        register = new int[size * REGISTERS];
+        stack = new int[size * REGISTERS];
+        pc = new int[size];
+        i = new int[size];
+        sp = new int[size];
+        dt = new int[size];
+        st = new int[size];
+        waiting = new int[size];
+        keys = new int[size];
+        lastPressed = new int[size];
+        pressed = new boolean[size];
+        halted = new boolean[size];
+        displays = new Display[size];
+        opcodes = new int[size];
+        groups = new int[Instruction.COUNT * size];
+        random = new long[size];
+        setSeed((long) (Math.random() * Long.MAX_VALUE));
+        for (int n = 0; n < size; n++)
+            displays[n] = new Display();
+    }
+
+    /**
+     * Constructs a new batch of the specified number of instances with the default timer rate.
+     *
+     * @param size The number of instances.
+     */
+    public BatchMachine(final int size) {
+        this(size, Processor.UPDATE_RATE / Processor.CYCLE_RATE);
+    }
+
+    /**
+     * Resets every instance and loads the specified ROM.
+     *
+     * @param rom The ROM bytes.
+     */
+    public void load(final byte[] rom) {
+        if (rom.length > Processor.MAX_ROM_SIZE)
+            throw new IllegalArgumentException("ROM too large: " + rom.length + " bytes");
+        for (int address = 0; address < Memory.SIZE; address++)
+            image[address] = 0;
+        for (int address = 0; address < Processor.FONT.length; address++)
+            image[address] = (byte) Processor.FONT[address];
+        System.arraycopy(rom, 0, image, Processor.ROM_START, rom.length);
+        for (int n = 0; n < size; n++)
+            reset(n);
+        tick = 0;
+    }
+
+    /**
+     * Resets the specified instance to the ROM last loaded, keeping its random number state. The timer phase is shared
+     * by every instance, so the instance only starts like a freshly loaded one if it's reset on a frame boundary.
+     *
+     * @param n The instance.
+     */
+    public void reset(final int n) {
+        System.arraycopy(image, 0, memory, n * Memory.SIZE, Memory.SIZE);
+        for (int r = 0; r < REGISTERS; r++)
+            register[n * REGISTERS + r] = stack[n * REGISTERS + r] = 0;
+        pc[n] = Processor.ROM_START;
+        i[n] = sp[n] = dt[n] = st[n] = keys[n] = lastPressed[n] = 0;
+        waiting[n] = -1;
+        pressed[n] = halted[n] = false;
+        displays[n].clear();
+    }
+
+    /**
+     * Sets the keys held down by the specified instance. Keys which weren't held down before count as presses.
+     *
+     * @param n    The instance.
+     * @param mask The keys, bit n set if key n is down.
+     */
+    public void setKeys(final int n, final int mask) {
+        final int down = mask & ~keys[n] & 0xFFFF;
+        if (down != 0) {
+            lastPressed[n] = Integer.numberOfTrailingZeros(down);
+            pressed[n] = true;
+        }
+        keys[n] = mask & 0xFFFF;
+    }
+
+    /**
+     * Executes the specified number of cycles on every instance.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void run(final int cycles) {
+        for (int c = 0; c < cycles; c++)
+            step();
+    }
+
+    /**
+     * Executes one cycle on every instance.
+     */
+    public void step() {
+        for (int ins = 0; ins < Instruction.COUNT; ins++)
+            counts[ins] = 0;
+        for (int n = 0; n < size; n++) {
+            if (halted[n])
+                continue;
+            if (waiting[n] != -1) {
+                if (!pressed[n])
+                    continue;
+                register[n * REGISTERS + waiting[n]] = lastPressed[n];
+                waiting[n] = -1;
+            }
+            final int base = n * Memory.SIZE;
+            final int address = pc[n] & Memory.MASK;
+            final int opcode = (memory[base + address] & 0xFF) << 8
+                    | memory[base + ((address + 1) & Memory.MASK)] & 0xFF;
+            final int ins = Instruction.of(opcode);
+            opcodes[n] = opcode;
+            groups[ins * size + counts[ins]++] = n;
+            pc[n] = (address + 2) & Memory.MASK;
+        }
+        for (int ins = 0; ins < Instruction.COUNT; ins++)
+            if (counts[ins] != 0)
+                execute(ins, ins * size, ins * size + counts[ins]);
+        if (++tick == cyclesPerFrame) {
+            tick = 0;
+            for (int n = 0; n < size; n++) {
+                if (halted[n])
+                    continue;
+                if (dt[n] > 0) dt[n]--;
+                if (st[n] > 0) st[n]--;
+            }
+        }
+    }
+
+    /**
+     * Executes the specified instruction on a group of instances.
+     *
+     * @param instruction The instruction.
+     * @param from        The index of the first instance in the groups, inclusive.
+     * @param to          The index of the last instance in the groups, exclusive.
+     */
+    private void execute(final int instruction, final int from, final int to) {
+        switch (instruction) {
+            case Instruction.CLS:
+                for (int k = from; k < to; k++)
+                    displays[groups[k]].clear();
+                return;
+            case Instruction.RET:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (sp[n] < 0) {
+                        halt(n);
+                        continue;
+                    }
+                    pc[n] = stack[n * REGISTERS + sp[n]--];
+                }
+                return;
+            case Instruction.JP:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    pc[n] = opcodes[n] & 0xFFF;
+                }
+                return;
+            case Instruction.CALL:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (sp[n] == REGISTERS - 1) {
+                        halt(n);
+                        continue;
+                    }
+                    stack[n * REGISTERS + ++sp[n]] = pc[n];
+                    pc[n] = opcodes[n] & 0xFFF;
+                }
+                return;
+            case Instruction.SE_BYTE:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (register[n * REGISTERS + x(n)] == (opcodes[n] & 0xFF))
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.SNE_BYTE:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (register[n * REGISTERS + x(n)] != (opcodes[n] & 0xFF))
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.SE_REG:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (register[n * REGISTERS + x(n)] == register[n * REGISTERS + y(n)])
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.LD_BYTE:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] = opcodes[n] & 0xFF;
+                }
+                return;
+            case Instruction.ADD_BYTE:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    register[vx] = (register[vx] + (opcodes[n] & 0xFF)) & 0xFF;
+                }
+                return;
+            case Instruction.LD_REG:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] = register[n * REGISTERS + y(n)];
+                }
+                return;
+            case Instruction.OR:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] |= register[n * REGISTERS + y(n)];
+                }
+                return;
+            case Instruction.AND:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] &= register[n * REGISTERS + y(n)];
+                }
+                return;
+            case Instruction.XOR:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] ^= register[n * REGISTERS + y(n)];
+                }
+                return;
+            case Instruction.ADD_REG:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    final int sum = register[vx] + register[n * REGISTERS + y(n)];
+                    register[n * REGISTERS + 0xF] = sum > 0xFF ? 1 : 0;
+                    register[vx] = sum & 0xFF;
+                }
+                return;
+            case Instruction.SUB:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    final int vy = n * REGISTERS + y(n);
+                    register[n * REGISTERS + 0xF] = register[vx] > register[vy] ? 1 : 0;
+                    register[vx] = (register[vx] - register[vy]) & 0xFF;
+                }
+                return;
+            case Instruction.SHR:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    register[n * REGISTERS + 0xF] = register[vx] & 0x1;
+                    register[vx] = register[vx] >>> 1;
+                }
+                return;
+            case Instruction.SUBN:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    final int vy = n * REGISTERS + y(n);
+                    register[n * REGISTERS + 0xF] = register[vy] > register[vx] ? 1 : 0;
+                    register[vx] = (register[vy] - register[vx]) & 0xFF;
+                }
+                return;
+            case Instruction.SHL:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int vx = n * REGISTERS + x(n);
+                    register[n * REGISTERS + 0xF] = register[vx] >>> 7;
+                    register[vx] = (register[vx] << 1) & 0xFF;
+                }
+                return;
+            case Instruction.SNE_REG:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if (register[n * REGISTERS + x(n)] != register[n * REGISTERS + y(n)])
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.LD_I:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    i[n] = opcodes[n] & 0xFFF;
+                }
+                return;
+            case Instruction.JP_V0:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    pc[n] = ((opcodes[n] & 0xFFF) + register[n * REGISTERS]) & Memory.MASK;
+                }
+                return;
+            case Instruction.RND:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    random[n] += SplitMix.GAMMA;
+                    register[n * REGISTERS + x(n)] = (int) (SplitMix.mix(random[n]) >>> 56) & opcodes[n] & 0xFF;
+                }
+                return;
+            case Instruction.DRW:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final boolean erased = displays[n].draw(register[n * REGISTERS + x(n)],
+                            register[n * REGISTERS + y(n)], memory, n * Memory.SIZE, i[n], opcodes[n] & 0xF);
+                    register[n * REGISTERS + 0xF] = erased ? 1 : 0;
+                }
+                return;
+            case Instruction.SKP:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if ((keys[n] & (1 << (register[n * REGISTERS + x(n)] & 0xF))) != 0)
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.SKNP:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    if ((keys[n] & (1 << (register[n * REGISTERS + x(n)] & 0xF))) == 0)
+                        pc[n] += 2;
+                }
+                return;
+            case Instruction.LD_DT:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    register[n * REGISTERS + x(n)] = dt[n] & 0xFF;
+                }
+                return;
+            case Instruction.LD_KEY:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    pressed[n] = false;
+                    waiting[n] = x(n);
+                }
+                return;
+            case Instruction.SET_DT:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    dt[n] = register[n * REGISTERS + x(n)];
+                }
+                return;
+            case Instruction.SET_ST:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    st[n] = register[n * REGISTERS + x(n)];
+                }
+                return;
+            case Instruction.ADD_I:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    i[n] = (i[n] + register[n * REGISTERS + x(n)]) & 0xFFF;
+                }
+                return;
+            case Instruction.LD_FONT:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    i[n] = register[n * REGISTERS + x(n)] * 5;
+                }
+                return;
+            case Instruction.BCD:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int value = register[n * REGISTERS + x(n)];
+                    final int base = n * Memory.SIZE;
+                    final int hundreds = value / 100;
+                    final int tens = (value - hundreds) / 10;
+                    memory[base + i[n]] = (byte) hundreds;
+                    memory[base + ((i[n] + 1) & Memory.MASK)] = (byte) tens;
+                    memory[base + ((i[n] + 2) & Memory.MASK)] = (byte) (value - hundreds - tens);
+                }
+                return;
+            case Instruction.STORE:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int base = n * Memory.SIZE;
+                    for (int r = 0; r <= x(n); r++)
+                        memory[base + ((i[n] + r) & Memory.MASK)] = (byte) register[n * REGISTERS + r];
+                }
+                return;
+            case Instruction.LOAD:
+                for (int k = from; k < to; k++) {
+                    final int n = groups[k];
+                    final int base = n * Memory.SIZE;
+                    for (int r = 0; r <= x(n); r++)
+                        register[n * REGISTERS + r] = memory[base + ((i[n] + r) & Memory.MASK)] & 0xFF;
+                }
+        }
+    }
+
+    /**
+     * Gets the X operand of the opcode of the specified instance.
+     *
+     * @param n The instance.
+     * @return The X operand.
+     */
+    private int x(final int n) {
+        return (opcodes[n] >>> 8) & 0xF;
+    }
+
+    /**
+     * Gets the Y operand of the opcode of the specified instance.
+     *
+     * @param n The instance.
+     * @return The Y operand.
+     */
+    private int y(final int n) {
+        return (opcodes[n] >>> 4) & 0xF;
+    }
+
+    /**
+     * Halts the specified instance on the instruction it's executing.
+     *
+     * @param n The instance.
+     */
+    private void halt(final int n) {
+        pc[n] = (pc[n] - 2) & Memory.MASK;
+        halted[n] = true;
+    }
+
+    /**
+     * Gets the number of instances.
+     *
+     * @return The number of instances.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of cycles between timer updates.
+     *
+     * @return The number of cycles.
+     */
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    /**
+     * Gets the display of the specified instance.
+     *
+     * @param n The instance.
+     * @return The display.
+     */
+    public Display getDisplay(final int n) {
+        return displays[n];
+    }
+
+    /**
+     * Gets the value of the specified register of the specified instance.
+     *
+     * @param n The instance.
+     * @param r The register.
+     * @return The value.
+     */
+    public int getRegister(final int n, final int r) {
+        return register[n * REGISTERS + r];
+    }
+
+    /**
+     * Gets the program counter of the specified instance.
+     *
+     * @param n The instance.
+     * @return The program counter.
+     */
+    public int getProgramCounter(final int n) {
+        return pc[n];
+    }
+
+    /**
+     * Returns whether or not the specified instance has halted on a stack fault.
+     *
+     * @param n The instance.
+     * @return Whether or not the instance has halted.
+     */
+    public boolean isHalted(final int n) {
+        return halted[n];
+    }
+
+    /**
+     * Seeds the random numbers of opcode CXNN of every instance, instance n with the specified seed plus n.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(final long seed) {
+        for (int n = 0; n < size; n++)
+            random[n] = seed + n;
+    }
+
+    /**
+     * Seeds the random numbers of opcode CXNN of the specified instance, reproducing a {@link Processor} seeded the
+     * same.
+     *
+     * @param n    The instance.
+     * @param seed The seed.
+     */
+    public void setSeed(final int n, final long seed) {
+        random[n] = seed;
+    }
+}
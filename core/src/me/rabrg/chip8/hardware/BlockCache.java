@@ -0,0 +1,153 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * The cache of decoded basic blocks for the {@link Engine#BLOCK} engine, indexed by start address.
+ */
+final class BlockCache {
+
+    /**
+     * The maximum number of instructions in a block.
+     */
+    private static final int MAX_LENGTH = 0x40;
+
+    /**
+     * The block starting at every address, or null if none has been decoded.
+     */
+    private final int[][] blocks;
+
+    /**
+     * Whether or not every address is covered by a cached block.
+     */
+    private final boolean[] code;
+
+    /**
+     * The start address of every cached block, in the order they were decoded.
+     */
+    private final int[] starts;
+
+    /**
+     * The number of cached blocks.
+     */
+    private int count;
+
+    /**
+     * Constructs a new block cache for the specified amount of memory.
+     *
+     * @param size The amount of memory.
+     */
+    BlockCache(final int size) {
+        blocks = new int[size][];
+        code = new boolean[size];
+        starts = new int[size];
+    }
+
+    /**
+     * Gets the block starting at the specified address, decoding it from memory if it isn't cached. Every entry of a
+     * block packs the instruction above the opcode, and the block ends after the first instruction which can change the
+     * program counter, wait or write memory, or at the end of memory.
+     *
+     * @param memory  The memory.
+     * @param address The address.
+     * @return The block.
+     */
+    int[] get(final Memory memory, final int address) {
+        int[] block = blocks[address];
+        if (block != null)
+            return block;
+
+        final int[] ops = new int[MAX_LENGTH];
+        int length = 0;
+        for (int pc = address; length < MAX_LENGTH; pc += 2) {
+            final int opcode = memory.getOpcode(pc);
+            final int instruction = Instruction.of(opcode);
+            ops[length++] = instruction << 16 | opcode;
+            code[pc] = code[(pc + 1) & Memory.MASK] = true;
+            if (endsBlock(instruction) || pc + 2 >= Memory.SIZE)
+                break;
+        }
+        block = new int[length];
+        System.arraycopy(ops, 0, block, 0, length);
+        blocks[address] = block;
+        starts[count++] = address;
+        return block;
+    }
+
+    /**
+     * Discards every block if any of the specified addresses is covered by one.
+     *
+     * @param from The first address written, inclusive.
+     * @param to   The last address written, exclusive.
+     */
+    void invalidate(final int from, final int to) {
+        if (count == 0)
+            return;
+        for (int address = from; address < to; address++) {
+            if (code[address & Memory.MASK]) {
+                clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Discards every block unless the opcodes of every cached block are unchanged in the specified image of memory,
+     * such as a save state about to be restored.
+     *
+     * @param image  The bytes holding the image.
+     * @param offset The index of address zero in the bytes.
+     */
+    void retain(final byte[] image, final int offset) {
+        for (int s = 0; s < count; s++) {
+            final int address = starts[s];
+            final int[] block = blocks[address];
+            for (int op = 0, pc = address; op < block.length; op++, pc += 2) {
+                final int opcode = (image[offset + pc] & 0xFF) << 8 | image[offset + ((pc + 1) & Memory.MASK)] & 0xFF;
+                if (opcode != (block[op] & 0xFFFF)) {
+                    clear();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards every block.
+     */
+    void clear() {
+        for (int s = 0; s < count; s++) {
+            final int address = starts[s];
+            final int length = blocks[address].length;
+            for (int op = 0, pc = address; op < length; op++, pc += 2)
+                code[pc] = code[(pc + 1) & Memory.MASK] = false;
+            blocks[address] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Returns whether or not the specified instruction ends a block.
+     *
+     * @param instruction The instruction.
+     * @return Whether or not the instruction ends a block.
+     */
+    private static boolean endsBlock(final int instruction) {
+        switch (instruction) {
+            case Instruction.RET:
+            case Instruction.JP:
+            case Instruction.CALL:
+            case Instruction.SE_BYTE:
+            case Instruction.SNE_BYTE:
+            case Instruction.SE_REG:
+            case Instruction.SNE_REG:
+            case Instruction.JP_V0:
+            case Instruction.SKP:
+            case Instruction.SKNP:
+            case Instruction.LD_KEY:
+            case Instruction.BCD:
+            case Instruction.STORE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
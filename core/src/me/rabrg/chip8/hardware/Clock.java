@@ -0,0 +1,14 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A source of timestamps, for timing events across threads.
+ */
+public interface Clock {
+
+    /**
+     * Gets the current time.
+     *
+     * @return The time in nanoseconds from an arbitrary origin.
+     */
+    long nanoTime();
+}
@@ -0,0 +1,58 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A timer that updates once every fixed number of processor cycles, making timing independent of the host clock.
+ */
+public final class CycleTimer implements Timer {
+
+    /**
+     * The number of cycles between updates.
+     */
+    private final int cycles;
+
+    /**
+     * The cycles elapsed since the last update.
+     */
+    private int tick;
+
+    /**
+     * Constructs a new timer which updates every specified number of cycles.
+     *
+     * @param cycles The number of cycles.
+     */
+    public CycleTimer(final int cycles) {
+        if (cycles <= 0)
+            throw new IllegalArgumentException("cycles must be positive: " + cycles);
+        this.cycles = cycles;
+    }
+
+    /**
+     * Constructs a new timer matching the default cycle and update rates.
+     */
+    public CycleTimer() {
+        this(Processor.UPDATE_RATE / Processor.CYCLE_RATE);
+    }
+
+    @Override
+    public boolean tick() {
+        if (++tick < cycles)
+            return false;
+        tick = 0;
+        return true;
+    }
+
+    @Override
+    public int getPeriod() {
+        return cycles;
+    }
+
+    @Override
+    public int getPhase() {
+        return tick;
+    }
+
+    @Override
+    public void setPhase(final int phase) {
+        tick = phase % cycles;
+    }
+}
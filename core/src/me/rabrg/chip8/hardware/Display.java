@@ -1,118 +1,218 @@
 package me.rabrg.chip8.hardware;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-
+/**
+ * The 64x32 monochrome framebuffer, one row per long. It's a concrete class rather than an interface because frontends
+ * don't replace it, they read from it: renderers, recorders and observers poll the rows and generation, which the
+ * processor updates directly, and it's part of every save state.
+ */
 public final class Display {
 
-    /**
-     * The background color.
-     */
-    private static final Color BACKGROUND = new Color(0.13f, 0.55f, 0.55f, 0f);
-
-    /**
-     * The foreground color.
-     */
-    private static final Color FOREGROUND = new Color(0.42f, 0.81f, 0.80f, 0f);
-
     /**
      * The width of the display in pixels.
      */
-    public static int WIDTH = 64;
+    public static final int WIDTH = 64;
 
     /**
      * The height of the display in pixels.
      */
-    public static int HEIGHT = 32;
+    public static final int HEIGHT = 32;
 
     /**
-     * The pixel values of the display.
+     * The number of bytes of the display state in a save state.
      */
-    private final int[][] values = new int[HEIGHT][WIDTH];
+    static final int STATE_SIZE = HEIGHT * 8;
 
     /**
-     * The shape renderer for drawing the rectangular pixels.
+     * The pixel values of the display, one row per long with the leftmost pixel in the most significant bit.
      */
-    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+    private final long[] rows = new long[HEIGHT];
 
     /**
-     * The camera for inverting the y-axis.
+     * The generation of the pixels, incremented every time a draw or clear changes any of them.
      */
-    private final OrthographicCamera camera = new OrthographicCamera();
+    private int generation;
 
     /**
-     * Whether or not the display gets updated the next cycle.
+     * The generation in which every row last changed.
      */
-    public boolean render;
+    private final int[] rowGenerations = new int[HEIGHT];
+
     /**
-     * The scale of the display.
+     * Draws the specified sprite at the specified coordinates, wrapping around the edges of the display.
+     *
+     * @param x      The x coordinate.
+     * @param y      The y coordinate.
+     * @param sprite The sprite.
+     * @return Whether or not a pixel was erased.
      */
-    private int scale;
+    public boolean draw(final int x, final int y, final int[] sprite) {
+        return draw(x, y, sprite, 0, sprite.length);
+    }
 
     /**
-     * Renders the display if the render flag is true.
+     * Draws the sprite stored at the specified address of the specified memory at the specified coordinates, wrapping
+     * around the edges of the display. Nothing is allocated.
+     *
+     * @param x       The x coordinate.
+     * @param y       The y coordinate.
+     * @param memory  The memory holding the sprite, one row per element.
+     * @param address The address of the first row.
+     * @param length  The number of rows.
+     * @return Whether or not a pixel was erased.
      */
-    public void render() {
-        if (render) {
-            Gdx.gl.glClearColor(0, 0, 0, 1);
-            Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-            shapeRenderer.setProjectionMatrix(camera.combined);
-            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-            for (int y = 0; y < values.length; y++) {
-                for (int x = 0; x < values[y].length; x++) {
-                    shapeRenderer.setColor(values[y][x] > 0 ? FOREGROUND : BACKGROUND);
-                    shapeRenderer.rect(x * scale, y * scale, scale, scale);
-                }
+    public boolean draw(final int x, final int y, final int[] memory, final int address, final int length) {
+        final int next = generation + 1;
+        long erased = 0;
+        long changed = 0;
+        for (int i = 0; i < length; i++) {
+            final long mask = Long.rotateRight((long) (memory[address + i] & 0xFF) << (WIDTH - 8), x);
+            if (mask != 0) {
+                final int row = (y + i) % HEIGHT;
+                erased |= rows[row] & mask;
+                rows[row] ^= mask;
+                rowGenerations[row] = next;
+                changed |= mask;
             }
-            shapeRenderer.end();
         }
+        if (changed != 0)
+            generation = next;
+        return erased != 0;
     }
 
     /**
-     * Draws the specified sprite at the specified coordinates.
+     * Draws the sprite stored at the specified address of the 4 KB of memory starting at the specified offset of the
+     * specified bytes at the specified coordinates, wrapping around the edges of the display and the end of memory.
+     * Nothing is allocated.
      *
-     * @param x      The x coordinate.
-     * @param y      The y coordinate.
-     * @param sprite The sprite.
+     * @param x       The x coordinate.
+     * @param y       The y coordinate.
+     * @param memory  The bytes holding the memory, one sprite row per byte.
+     * @param base    The offset of the memory in the bytes.
+     * @param address The address of the first row.
+     * @param length  The number of rows.
      * @return Whether or not a pixel was erased.
      */
-    public boolean draw(final int x, final int y, final int[] sprite) {
-        boolean erased = false;
-        for (int i = 0; i < sprite.length; i++) {
-            for (int j = 7; j >= 0; j--) {
-                if (((sprite[i] >> j) & 1) == 1) {
-                    int indexY = (y + i) % HEIGHT;
-                    int indexX = (x + 8 - j) % WIDTH;
-                    values[indexY][indexX] ^= 1;
-                    if (values[indexY][indexX] == 0)
-                        erased = true;
-                }
+    public boolean draw(final int x, final int y, final byte[] memory, final int base, final int address,
+                        final int length) {
+        final int next = generation + 1;
+        long erased = 0;
+        long changed = 0;
+        for (int i = 0; i < length; i++) {
+            final long mask = Long.rotateRight((long) (memory[base + ((address + i) & Memory.MASK)] & 0xFF)
+                    << (WIDTH - 8), x);
+            if (mask != 0) {
+                final int row = (y + i) % HEIGHT;
+                erased |= rows[row] & mask;
+                rows[row] ^= mask;
+                rowGenerations[row] = next;
+                changed |= mask;
             }
         }
-        return erased;
+        if (changed != 0)
+            generation = next;
+        return erased != 0;
     }
 
     /**
      * Clears the display setting all pixels to zero.
      */
     public void clear() {
+        final int next = generation + 1;
+        for (int y = 0; y < HEIGHT; y++) {
+            if (rows[y] != 0) {
+                rows[y] = 0;
+                rowGenerations[y] = next;
+                generation = next;
+            }
+        }
+    }
+
+    /**
+     * Returns whether or not the pixel at the specified coordinates is set.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return Whether or not the pixel is set.
+     */
+    public boolean isSet(final int x, final int y) {
+        return (rows[y] << x) < 0;
+    }
+
+    /**
+     * Gets the pixels of the specified row, with the leftmost pixel in the most significant bit.
+     *
+     * @param y The y coordinate.
+     * @return The pixels of the row.
+     */
+    public long getRow(final int y) {
+        return rows[y];
+    }
+
+    /**
+     * Copies the pixels of every row into the specified array.
+     *
+     * @param destination The array of at least {@link #HEIGHT} rows.
+     */
+    public void copyRows(final long[] destination) {
+        System.arraycopy(rows, 0, destination, 0, HEIGHT);
+    }
+
+    /**
+     * Gets the generation of the pixels. It changes every time a draw or clear changes any pixel, so an unchanged
+     * generation means an unchanged frame.
+     *
+     * @return The generation.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the rows which have changed since the specified generation.
+     *
+     * @param since The generation last seen by the caller.
+     * @return The changed rows, with bit y set if row y has changed.
+     */
+    public int getDirtyRows(final int since) {
+        int dirty = 0;
+        for (int y = 0; y < HEIGHT; y++)
+            if (rowGenerations[y] - since > 0)
+                dirty |= 1 << y;
+        return dirty;
+    }
+
+    /**
+     * Gets a 64 bit hash of the pixels, equal for equal frames, for comparing runs without keeping their frames.
+     *
+     * @return The hash.
+     */
+    public long getHash() {
+        long hash = 0xCBF29CE484222325L;
         for (int y = 0; y < HEIGHT; y++)
-            for (int x = 0; x < WIDTH; x++)
-                values[y][x] = 0;
+            hash = (hash ^ rows[y]) * 0x100000001B3L;
+        return hash;
     }
 
     /**
-     * Resizes the display to the specified width and height.
+     * Writes the pixels to the specified save state buffer.
      *
-     * @param width  The width.
-     * @param height The height.
+     * @param buffer The buffer.
      */
-    public void resize(final int width, final int height) {
-        scale = Math.min(width / WIDTH, height / HEIGHT);
-        camera.setToOrtho(true, width, height);
-        camera.update();
+    void save(final StateBuffer buffer) {
+        for (int y = 0; y < HEIGHT; y++)
+            buffer.putLong(rows[y]);
+    }
+
+    /**
+     * Reads the pixels from the specified save state buffer, marking every row as changed.
+     *
+     * @param buffer The buffer.
+     */
+    void load(final StateBuffer buffer) {
+        generation++;
+        for (int y = 0; y < HEIGHT; y++) {
+            rows[y] = buffer.getLong();
+            rowGenerations[y] = generation;
+        }
     }
 }
@@ -0,0 +1,24 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * The ways a processor can execute instructions.
+ */
+public enum Engine {
+
+    /**
+     * Fetches and decodes every instruction from memory as it's executed.
+     */
+    INTERPRETER,
+
+    /**
+     * Decodes straight-line runs of instructions into cached blocks the first time they're reached and executes the
+     * blocks from then on.
+     */
+    BLOCK,
+
+    /**
+     * Executes code translated into a class ahead of time, set with {@link Processor#setTranslation}, and the block
+     * engine wherever the translation doesn't reach.
+     */
+    AOT
+}
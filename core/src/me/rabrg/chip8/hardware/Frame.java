@@ -0,0 +1,46 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A copy of the pixels of a display at one point in time, for handing frames to another thread.
+ */
+public final class Frame {
+
+    /**
+     * The pixels of the frame, one row per long with the leftmost pixel in the most significant bit.
+     */
+    private final long[] rows = new long[Display.HEIGHT];
+
+    /**
+     * The generation of the display the frame was captured from.
+     */
+    private int generation;
+
+    /**
+     * Captures the pixels of the specified display.
+     *
+     * @param display The display.
+     */
+    public void capture(final Display display) {
+        display.copyRows(rows);
+        generation = display.getGeneration();
+    }
+
+    /**
+     * Gets the pixels of the specified row, with the leftmost pixel in the most significant bit.
+     *
+     * @param y The y coordinate.
+     * @return The pixels of the row.
+     */
+    public long getRow(final int y) {
+        return rows[y];
+    }
+
+    /**
+     * Gets the generation of the display the frame was captured from.
+     *
+     * @return The generation.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,318 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * The instruction set, with every one of the 65,536 opcodes decoded once into a flat table.
+ */
+public final class Instruction {
+
+    /**
+     * 0NNN, 00E0 and 00EE aside; ignored.
+     */
+    public static final int SYS = 0;
+
+    /**
+     * 00E0; clears the display.
+     */
+    public static final int CLS = 1;
+
+    /**
+     * 00EE; returns from a subroutine.
+     */
+    public static final int RET = 2;
+
+    /**
+     * 1NNN; jumps to NNN.
+     */
+    public static final int JP = 3;
+
+    /**
+     * 2NNN; calls the subroutine at NNN.
+     */
+    public static final int CALL = 4;
+
+    /**
+     * 3XNN; skips if VX equals NN.
+     */
+    public static final int SE_BYTE = 5;
+
+    /**
+     * 4XNN; skips if VX doesn't equal NN.
+     */
+    public static final int SNE_BYTE = 6;
+
+    /**
+     * 5XY0; skips if VX equals VY.
+     */
+    public static final int SE_REG = 7;
+
+    /**
+     * 6XNN; sets VX to NN.
+     */
+    public static final int LD_BYTE = 8;
+
+    /**
+     * 7XNN; adds NN to VX.
+     */
+    public static final int ADD_BYTE = 9;
+
+    /**
+     * 8XY0; sets VX to VY.
+     */
+    public static final int LD_REG = 10;
+
+    /**
+     * 8XY1; sets VX to VX or VY.
+     */
+    public static final int OR = 11;
+
+    /**
+     * 8XY2; sets VX to VX and VY.
+     */
+    public static final int AND = 12;
+
+    /**
+     * 8XY3; sets VX to VX xor VY.
+     */
+    public static final int XOR = 13;
+
+    /**
+     * 8XY4; adds VY to VX with carry.
+     */
+    public static final int ADD_REG = 14;
+
+    /**
+     * 8XY5; subtracts VY from VX with borrow.
+     */
+    public static final int SUB = 15;
+
+    /**
+     * 8XY6; shifts VX right.
+     */
+    public static final int SHR = 16;
+
+    /**
+     * 8XY7; sets VX to VY minus VX with borrow.
+     */
+    public static final int SUBN = 17;
+
+    /**
+     * 8XYE; shifts VX left.
+     */
+    public static final int SHL = 18;
+
+    /**
+     * 9XY0; skips if VX doesn't equal VY.
+     */
+    public static final int SNE_REG = 19;
+
+    /**
+     * ANNN; sets I to NNN.
+     */
+    public static final int LD_I = 20;
+
+    /**
+     * BNNN; jumps to NNN plus V0.
+     */
+    public static final int JP_V0 = 21;
+
+    /**
+     * CXNN; sets VX to a random number and NN.
+     */
+    public static final int RND = 22;
+
+    /**
+     * DXYN; draws an N row sprite at VX, VY.
+     */
+    public static final int DRW = 23;
+
+    /**
+     * EX9E; skips if the key VX is pressed.
+     */
+    public static final int SKP = 24;
+
+    /**
+     * EXA1; skips if the key VX isn't pressed.
+     */
+    public static final int SKNP = 25;
+
+    /**
+     * FX07; sets VX to the delay timer.
+     */
+    public static final int LD_DT = 26;
+
+    /**
+     * FX0A; waits for a key press and stores it in VX.
+     */
+    public static final int LD_KEY = 27;
+
+    /**
+     * FX15; sets the delay timer to VX.
+     */
+    public static final int SET_DT = 28;
+
+    /**
+     * FX18; sets the sound timer to VX.
+     */
+    public static final int SET_ST = 29;
+
+    /**
+     * FX1E; adds VX to I.
+     */
+    public static final int ADD_I = 30;
+
+    /**
+     * FX29; sets I to the font sprite for VX.
+     */
+    public static final int LD_FONT = 31;
+
+    /**
+     * FX33; stores the binary-coded decimal of VX at I.
+     */
+    public static final int BCD = 32;
+
+    /**
+     * FX55; stores V0 to VX at I.
+     */
+    public static final int STORE = 33;
+
+    /**
+     * FX65; loads V0 to VX from I.
+     */
+    public static final int LOAD = 34;
+
+    /**
+     * The number of instructions.
+     */
+    public static final int COUNT = 35;
+
+    /**
+     * The name of every instruction.
+     */
+    private static final String[] NAMES = {
+            "SYS", "CLS", "RET", "JP", "CALL", "SE_BYTE", "SNE_BYTE", "SE_REG", "LD_BYTE", "ADD_BYTE", "LD_REG", "OR",
+            "AND", "XOR", "ADD_REG", "SUB", "SHR", "SUBN", "SHL", "SNE_REG", "LD_I", "JP_V0", "RND", "DRW", "SKP",
+            "SKNP", "LD_DT", "LD_KEY", "SET_DT", "SET_ST", "ADD_I", "LD_FONT", "BCD", "STORE", "LOAD"
+    };
+
+    /**
+     * The instruction of every opcode.
+     */
+    private static final byte[] TABLE = new byte[0x10000];
+
+    static {
+        for (int opcode = 0; opcode < TABLE.length; opcode++)
+            TABLE[opcode] = (byte) classify(opcode);
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private Instruction() {
+    }
+
+    /**
+     * Gets the instruction of the specified opcode.
+     *
+     * @param opcode The opcode.
+     * @return The instruction.
+     */
+    public static int of(final int opcode) {
+        return TABLE[opcode];
+    }
+
+    /**
+     * Gets the name of the specified instruction, the name of its constant.
+     *
+     * @param instruction The instruction.
+     * @return The name.
+     */
+    public static String getName(final int instruction) {
+        return NAMES[instruction];
+    }
+
+    /**
+     * Classifies the specified opcode the slow way, for building the table.
+     *
+     * @param opcode The opcode.
+     * @return The instruction.
+     */
+    private static int classify(final int opcode) {
+        switch (opcode) {
+            case 0x00E0:
+                return CLS;
+            case 0x00EE:
+                return RET;
+        }
+        switch (opcode & 0xF000) {
+            case 0x1000:
+                return JP;
+            case 0x2000:
+                return CALL;
+            case 0x3000:
+                return SE_BYTE;
+            case 0x4000:
+                return SNE_BYTE;
+            case 0x6000:
+                return LD_BYTE;
+            case 0x7000:
+                return ADD_BYTE;
+            case 0xA000:
+                return LD_I;
+            case 0xB000:
+                return JP_V0;
+            case 0xC000:
+                return RND;
+            case 0xD000:
+                return DRW;
+        }
+        switch (opcode & 0xF00F) {
+            case 0x5000:
+                return SE_REG;
+            case 0x8000:
+                return LD_REG;
+            case 0x8001:
+                return OR;
+            case 0x8002:
+                return AND;
+            case 0x8003:
+                return XOR;
+            case 0x8004:
+                return ADD_REG;
+            case 0x8005:
+                return SUB;
+            case 0x8006:
+                return SHR;
+            case 0x8007:
+                return SUBN;
+            case 0x800E:
+                return SHL;
+            case 0x9000:
+                return SNE_REG;
+        }
+        switch (opcode & 0xF0FF) {
+            case 0xE09E:
+                return SKP;
+            case 0xE0A1:
+                return SKNP;
+            case 0xF007:
+                return LD_DT;
+            case 0xF00A:
+                return LD_KEY;
+            case 0xF015:
+                return SET_DT;
+            case 0xF018:
+                return SET_ST;
+            case 0xF01E:
+                return ADD_I;
+            case 0xF029:
+                return LD_FONT;
+            case 0xF033:
+                return BCD;
+            case 0xF055:
+                return STORE;
+            case 0xF065:
+                return LOAD;
+        }
+        return SYS;
+    }
+}
@@ -1,89 +1,278 @@
 package me.rabrg.chip8.hardware;
 
-import com.badlogic.gdx.Input;
-import com.badlogic.gdx.InputAdapter;
+/**
+ * The hexadecimal keypad. Key events are pressed and released on one input thread and queued in a lock-free
+ * single-producer, single-consumer ring with their timestamps, then applied by the processor at cycle boundaries. A
+ * release is held back until the press before it has been observed by an instruction or has lasted a 60 Hz frame, so a
+ * tap shorter than a frame isn't lost.
+ * <p>
+ * Frontends plug in by feeding it events rather than by implementing it, as GdxKeyboard does for libgdx input, so the
+ * processor polls one concrete keypad whose state is part of every save state.
+ */
+public final class Keyboard {
 
-// TODO: Mobile device input
-public final class Keyboard extends InputAdapter {
+    /**
+     * The number of bytes of the keypad state in a save state.
+     */
+    static final int STATE_SIZE = 2 + 2 + 1 + 1;
+
+    /**
+     * The number of events the ring holds, a power of two.
+     */
+    private static final int CAPACITY = 0x100;
+
+    /**
+     * The flag in an event marking it as a press rather than a release.
+     */
+    private static final int PRESS = 0x10;
 
     /**
-     * The state of all keys.
+     * The queued events, each a key with the press flag.
      */
-    private final boolean[] keys = new boolean[0x10];
+    private final int[] events = new int[CAPACITY];
+
+    /**
+     * The times the queued events happened in nanoseconds.
+     */
+    private final long[] times = new long[CAPACITY];
+
+    /**
+     * The times the pressed keys were pressed in nanoseconds, or zero once the press has been observed.
+     */
+    private final long[] pressTimes = new long[0x10];
+
+    /**
+     * The index of the next event to be applied, written only by the consumer.
+     */
+    private volatile int head;
+
+    /**
+     * The index of the next event to be queued, written only by the producer.
+     */
+    private volatile int tail;
+
+    /**
+     * The number of events dropped because the ring was full.
+     */
+    private volatile int dropped;
+
+    /**
+     * The clock timestamping events, or null if they aren't timed.
+     */
+    private volatile Clock clock;
+
+    /**
+     * The listener notified of key presses, or null.
+     */
+    private volatile Runnable listener;
+
+    /**
+     * The state of all keys, bit n set if key n is down.
+     */
+    private int keys;
+
+    /**
+     * The keys pressed which haven't been observed or lasted a frame, and so can't be released yet.
+     */
+    private int latched;
+
+    /**
+     * The key pressed last.
+     */
+    private int lastPressed;
 
     /**
      * Whether or not a key has been pressed.
      */
     private boolean pressed;
 
-    @Override
-    public boolean keyDown(final int keycode) {
-        final int hex = getHex(keycode);
-        if (hex != -1) {
-            keys[hex] = true;
+    /**
+     * The nanoseconds between the last observed press and the instruction which observed it.
+     */
+    private long latency;
+
+    /**
+     * Presses the specified key. Called from the input thread.
+     *
+     * @param hex The key.
+     */
+    public void press(final int hex) {
+        queue(hex | PRESS);
+        final Runnable listener = this.listener;
+        if (listener != null)
+            listener.run();
+    }
+
+    /**
+     * Releases the specified key. Called from the input thread.
+     *
+     * @param hex The key.
+     */
+    public void release(final int hex) {
+        queue(hex);
+    }
+
+    /**
+     * Queues the specified event, dropping it if the ring is full.
+     *
+     * @param event The event.
+     */
+    private void queue(final int event) {
+        final int t = tail;
+        if (t - head == CAPACITY) {
+            dropped++;
+            return;
+        }
+        final Clock clock = this.clock;
+        events[t & (CAPACITY - 1)] = event;
+        times[t & (CAPACITY - 1)] = clock == null ? 0 : clock.nanoTime();
+        tail = t + 1;
+    }
+
+    /**
+     * Applies the queued events up to the first release of a latched key. Called by the processor at every cycle
+     * boundary.
+     */
+    public void poll() {
+        int h = head;
+        final int t = tail;
+        if (h == t)
+            return;
+        for (; h != t; h++) {
+            final int event = events[h & (CAPACITY - 1)];
+            final int hex = event & 0xF;
+            if ((event & PRESS) != 0) {
+                keys |= 1 << hex;
+                latched |= 1 << hex;
+                pressTimes[hex] = times[h & (CAPACITY - 1)];
+                lastPressed = hex;
+                pressed = true;
+            } else if ((latched & (1 << hex)) != 0) {
+                break;
+            } else {
+                keys &= ~(1 << hex);
+            }
+        }
+        head = h;
+    }
+
+    /**
+     * Sets the state of every key at once, bypassing the queue, as if the newly down keys had been pressed in order
+     * from key 0. Called on the thread running the processor.
+     *
+     * @param mask The state of all keys, bit n set if key n is down.
+     */
+    public void setKeys(final int mask) {
+        final int down = mask & ~keys & 0xFFFF;
+        if (down != 0) {
+            lastPressed = Integer.numberOfTrailingZeros(down);
             pressed = true;
         }
-        return true;
+        keys = mask & 0xFFFF;
+        latched = 0;
     }
 
-    @Override
-    public boolean keyUp(final int keycode) {
-        final int hex = getHex(keycode);
-        if (hex != -1)
-            keys[hex] = false;
-        return true;
+    /**
+     * Releases every key and discards the queued events and the pressed flag. Called on the thread running the
+     * processor.
+     */
+    void reset() {
+        head = tail;
+        keys = latched = lastPressed = 0;
+        pressed = false;
+        for (int hex = 0; hex < pressTimes.length; hex++)
+            pressTimes[hex] = 0;
+    }
+
+    /**
+     * Unlatches every pressed key, letting held back releases apply. Called by the processor every 60 Hz frame.
+     */
+    public void frame() {
+        latched = 0;
     }
 
     /**
-     * Gets the hex value of the specified libgdx keycode.
+     * Returns whether or not events are queued which haven't been applied.
      *
-     * @param keycode The libgdx keycode.
-     * @return The hex value.
-     */
-    private int getHex(final int keycode) {
-        if (keycode == Input.Keys.NUM_1)
-            return 0x0;
-        if (keycode == Input.Keys.NUM_2)
-            return 0x1;
-        if (keycode == Input.Keys.NUM_3)
-            return 0x2;
-        if (keycode == Input.Keys.NUM_4)
-            return 0x3;
-        if (keycode == Input.Keys.Q)
-            return 0x4;
-        if (keycode == Input.Keys.W)
-            return 0x5;
-        if (keycode == Input.Keys.E)
-            return 0x6;
-        if (keycode == Input.Keys.R)
-            return 0x7;
-        if (keycode == Input.Keys.A)
-            return 0x8;
-        if (keycode == Input.Keys.S)
-            return 0x9;
-        if (keycode == Input.Keys.D)
-            return 0xA;
-        if (keycode == Input.Keys.F)
-            return 0xB;
-        if (keycode == Input.Keys.Z)
-            return 0xC;
-        if (keycode == Input.Keys.X)
-            return 0xD;
-        if (keycode == Input.Keys.C)
-            return 0xE;
-        if (keycode == Input.Keys.V)
-            return 0xF;
-        return -1;
-    }
-
-    /**
-     * Returns the state of the specified key.
+     * @return Whether or not events are queued.
+     */
+    public boolean hasQueued() {
+        return head != tail;
+    }
+
+    /**
+     * Returns the state of the specified key, observing it.
      *
      * @param hex The key.
      * @return The state of the key.
      */
     public boolean isKeyPressed(final int hex) {
-        return keys[hex];
+        final int key = hex & 0xF;
+        if ((keys & (1 << key)) == 0)
+            return false;
+        observe(key);
+        return true;
+    }
+
+    /**
+     * Observes the press of the specified key, unlatching it and measuring its latency the first time.
+     *
+     * @param hex The key.
+     */
+    private void observe(final int hex) {
+        latched &= ~(1 << hex);
+        final long time = pressTimes[hex];
+        final Clock clock = this.clock;
+        if (time != 0 && clock != null)
+            latency = clock.nanoTime() - time;
+        pressTimes[hex] = 0;
+    }
+
+    /**
+     * Gets the key pressed last, observing it.
+     *
+     * @return The key.
+     */
+    public int getLastPressed() {
+        observe(lastPressed);
+        return lastPressed;
+    }
+
+    /**
+     * Gets the nanoseconds between the last observed key press and the instruction which observed it, or zero if no
+     * clock is set.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the number of events dropped because too many were queued.
+     *
+     * @return The number of events.
+     */
+    public int getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Sets the clock timestamping events, or null for untimed events.
+     *
+     * @param clock The clock.
+     */
+    public void setClock(final Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the listener notified on the pressing thread after every key press, or null for none.
+     *
+     * @param listener The listener.
+     */
+    public void setListener(final Runnable listener) {
+        this.listener = listener;
     }
 
     /**
@@ -101,4 +290,30 @@ public final class Keyboard extends InputAdapter {
     public boolean isPressed() {
         return pressed;
     }
+
+    /**
+     * Writes the applied keypad state to the specified save state buffer.
+     *
+     * @param buffer The buffer.
+     */
+    void save(final StateBuffer buffer) {
+        buffer.putShort(keys);
+        buffer.putShort(latched);
+        buffer.put(lastPressed);
+        buffer.put(pressed ? 1 : 0);
+    }
+
+    /**
+     * Reads the applied keypad state from the specified save state buffer.
+     *
+     * @param buffer The buffer.
+     */
+    void load(final StateBuffer buffer) {
+        keys = buffer.getShort();
+        latched = buffer.getShort();
+        lastPressed = buffer.get();
+        pressed = buffer.get() != 0;
+        for (int hex = 0; hex < pressTimes.length; hex++)
+            pressTimes[hex] = 0;
+    }
 }
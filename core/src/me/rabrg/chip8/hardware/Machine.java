@@ -0,0 +1,128 @@
+package me.rabrg.chip8.hardware;
+
+import java.io.IOException;
+
+/**
+ * A complete CHIP-8 machine with no dependency on a windowing or graphics system.
+ */
+public final class Machine {
+
+    /**
+     * The source to load ROMs from.
+     */
+    private final RomSource romSource;
+
+    /**
+     * The display.
+     */
+    private final Display display = new Display();
+
+    /**
+     * The keyboard.
+     */
+    private final Keyboard keyboard = new Keyboard();
+
+    /**
+     * The timer.
+     */
+    private final Timer timer;
+
+    /**
+     * The processor.
+     */
+    private final Processor processor;
+
+    /**
+     * Constructs a new machine loading ROMs from the specified source with the specified timer.
+     *
+     * @param romSource The ROM source.
+     * @param timer     The timer.
+     */
+    public Machine(final RomSource romSource, final Timer timer) {
+        this.romSource = romSource;
+        this.timer = timer;
+        this.processor = new Processor(display, keyboard, timer);
+    }
+
+    /**
+     * Constructs a new machine loading ROMs from the specified source with the default timer.
+     *
+     * @param romSource The ROM source.
+     */
+    public Machine(final RomSource romSource) {
+        this(romSource, new CycleTimer());
+    }
+
+    /**
+     * Resets the machine and loads the ROM with the specified name.
+     *
+     * @param name The name.
+     * @throws IOException If the ROM couldn't be read.
+     */
+    public void load(final String name) throws IOException {
+        processor.loadROM(romSource.read(name));
+    }
+
+    /**
+     * Executes the specified number of processor cycles.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void run(final int cycles) {
+        processor.run(cycles);
+    }
+
+    /**
+     * Captures the complete state of the machine.
+     *
+     * @return The save state.
+     */
+    public SaveState save() {
+        return SaveState.capture(this);
+    }
+
+    /**
+     * Restores the machine to the specified save state.
+     *
+     * @param state The save state.
+     */
+    public void restore(final SaveState state) {
+        state.restore(this);
+    }
+
+    /**
+     * Gets the processor.
+     *
+     * @return The processor.
+     */
+    public Processor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * Gets the display.
+     *
+     * @return The display.
+     */
+    public Display getDisplay() {
+        return display;
+    }
+
+    /**
+     * Gets the timer.
+     *
+     * @return The timer.
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
+    /**
+     * Gets the keyboard.
+     *
+     * @return The keyboard.
+     */
+    public Keyboard getKeyboard() {
+        return keyboard;
+    }
+}
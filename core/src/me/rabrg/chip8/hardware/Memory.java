@@ -0,0 +1,150 @@
+package me.rabrg.chip8.hardware;
+
+import java.util.Arrays;
+
+/**
+ * The 4 KB of RAM, one byte per address. Every address wraps around the end of memory, so an instruction reading or
+ * writing past 0xFFF continues at 0x000 instead of failing.
+ */
+public final class Memory {
+
+    /**
+     * The number of addresses.
+     */
+    public static final int SIZE = 0x1000;
+
+    /**
+     * The mask wrapping an address into memory.
+     */
+    static final int MASK = SIZE - 1;
+
+    /**
+     * The bytes.
+     */
+    private final byte[] bytes = new byte[SIZE];
+
+    /**
+     * Gets the byte at the specified address.
+     *
+     * @param address The address.
+     * @return The unsigned byte.
+     */
+    public int get(final int address) {
+        return bytes[address & MASK] & 0xFF;
+    }
+
+    /**
+     * Sets the byte at the specified address.
+     *
+     * @param address The address.
+     * @param value   The byte.
+     */
+    void set(final int address, final int value) {
+        bytes[address & MASK] = (byte) value;
+    }
+
+    /**
+     * Gets the big-endian opcode at the specified address.
+     *
+     * @param address The address.
+     * @return The opcode.
+     */
+    public int getOpcode(final int address) {
+        return (bytes[address & MASK] & 0xFF) << 8 | bytes[(address + 1) & MASK] & 0xFF;
+    }
+
+    /**
+     * Writes the first registers to memory starting at the specified address, for opcode FX55.
+     *
+     * @param registers The registers.
+     * @param address   The address.
+     * @param count     The number of registers.
+     */
+    void store(final int[] registers, final int address, final int count) {
+        if (address + count <= SIZE) {
+            for (int r = 0; r < count; r++)
+                bytes[address + r] = (byte) registers[r];
+        } else {
+            for (int r = 0; r < count; r++)
+                bytes[(address + r) & MASK] = (byte) registers[r];
+        }
+    }
+
+    /**
+     * Reads the first registers from memory starting at the specified address, for opcode FX65.
+     *
+     * @param registers The registers.
+     * @param address   The address.
+     * @param count     The number of registers.
+     */
+    void load(final int[] registers, final int address, final int count) {
+        if (address + count <= SIZE) {
+            for (int r = 0; r < count; r++)
+                registers[r] = bytes[address + r] & 0xFF;
+        } else {
+            for (int r = 0; r < count; r++)
+                registers[r] = bytes[(address + r) & MASK] & 0xFF;
+        }
+    }
+
+    /**
+     * Writes the three decimal digits of opcode FX33 starting at the specified address.
+     *
+     * @param address  The address.
+     * @param hundreds The first digit.
+     * @param tens     The second digit.
+     * @param ones     The third digit.
+     */
+    void store(final int address, final int hundreds, final int tens, final int ones) {
+        bytes[address & MASK] = (byte) hundreds;
+        bytes[(address + 1) & MASK] = (byte) tens;
+        bytes[(address + 2) & MASK] = (byte) ones;
+    }
+
+    /**
+     * Copies the specified bytes into memory starting at the specified address.
+     *
+     * @param source  The bytes.
+     * @param address The address.
+     */
+    void write(final byte[] source, final int address) {
+        System.arraycopy(source, 0, bytes, address, source.length);
+    }
+
+    /**
+     * Zeroes the specified range of memory.
+     *
+     * @param from The first address, inclusive.
+     * @param to   The last address, exclusive.
+     */
+    void clear(final int from, final int to) {
+        Arrays.fill(bytes, from, to, (byte) 0);
+    }
+
+    /**
+     * Writes every byte to the specified save state buffer.
+     *
+     * @param buffer The buffer.
+     */
+    void save(final StateBuffer buffer) {
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads every byte from the specified save state buffer.
+     *
+     * @param buffer The buffer.
+     */
+    void load(final StateBuffer buffer) {
+        buffer.get(bytes);
+    }
+
+    /**
+     * Gets the backing bytes, for the display to read sprites without copying.
+     *
+     * @return The bytes.
+     */
+    byte[] array() {
+        return bytes;
+    }
+}
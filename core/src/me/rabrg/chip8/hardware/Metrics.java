@@ -0,0 +1,391 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * The runtime counters of a processor: instructions executed per instruction, cycles, timer ticks, sprites drawn and
+ * their collisions, how late the runner started every timeslice and how long frames took to render. The counters are
+ * written by the threads running and rendering the machine without synchronization and read through
+ * {@link #snapshot(long)}, so a snapshot taken from another thread may be off by the last few increments.
+ * <p>
+ * Counting is compiled out entirely unless {@link #ENABLED} is set to true.
+ */
+public final class Metrics {
+
+    /**
+     * Whether or not the counters are updated. Every update is guarded by this constant, so javac drops the updates
+     * from the processor and runners when it's false.
+     */
+    public static final boolean ENABLED = false;
+
+    /**
+     * The number of times every instruction has been executed.
+     */
+    private final long[] instructions = new long[Instruction.COUNT];
+
+    /**
+     * The number of cycles executed, including those spent waiting for a key.
+     */
+    private long cycles;
+
+    /**
+     * The number of 60 Hz timer ticks.
+     */
+    private long ticks;
+
+    /**
+     * The number of sprites drawn.
+     */
+    private long draws;
+
+    /**
+     * The number of sprites drawn which erased a pixel.
+     */
+    private long collisions;
+
+    /**
+     * The number of timeslices started by the runner.
+     */
+    private long slices;
+
+    /**
+     * The total nanoseconds timeslices started after they were due.
+     */
+    private long drift;
+
+    /**
+     * The most nanoseconds a timeslice started after it was due.
+     */
+    private long maxDrift;
+
+    /**
+     * The number of frames rendered.
+     */
+    private long frames;
+
+    /**
+     * The total nanoseconds spent rendering frames.
+     */
+    private long renderTime;
+
+    /**
+     * The most nanoseconds spent rendering a frame.
+     */
+    private long maxRenderTime;
+
+    /**
+     * The instructions per second the runner aims for, or zero if it's unthrottled.
+     */
+    private volatile int targetSpeed;
+
+    /**
+     * Counts an execution of the specified instruction.
+     *
+     * @param instruction The instruction.
+     */
+    void instruction(final int instruction) {
+        instructions[instruction]++;
+    }
+
+    /**
+     * Counts the specified number of executions of the specified instruction, skipped by fast-forwarding.
+     *
+     * @param instruction The instruction.
+     * @param count       The number of executions.
+     */
+    void instruction(final int instruction, final int count) {
+        instructions[instruction] += count;
+    }
+
+    /**
+     * Counts a cycle.
+     */
+    void cycle() {
+        cycles++;
+    }
+
+    /**
+     * Counts the specified number of cycles, skipped by fast-forwarding.
+     *
+     * @param count The number of cycles.
+     */
+    void cycles(final int count) {
+        cycles += count;
+    }
+
+    /**
+     * Counts a timer tick.
+     */
+    void tick() {
+        ticks++;
+    }
+
+    /**
+     * Counts the specified number of timer ticks, skipped by fast-forwarding.
+     *
+     * @param count The number of ticks.
+     */
+    void ticks(final int count) {
+        ticks += count;
+    }
+
+    /**
+     * Counts a sprite drawn.
+     *
+     * @param collided Whether or not the sprite erased a pixel.
+     */
+    void draw(final boolean collided) {
+        draws++;
+        if (collided)
+            collisions++;
+    }
+
+    /**
+     * Records a timeslice started by the runner the specified nanoseconds after it was due.
+     *
+     * @param late The nanoseconds.
+     */
+    public void slice(final long late) {
+        slices++;
+        drift += late;
+        if (late > maxDrift)
+            maxDrift = late;
+    }
+
+    /**
+     * Records a frame rendered in the specified nanoseconds.
+     *
+     * @param nanos The nanoseconds.
+     */
+    public void rendered(final long nanos) {
+        frames++;
+        renderTime += nanos;
+        if (nanos > maxRenderTime)
+            maxRenderTime = nanos;
+    }
+
+    /**
+     * Sets the instructions per second the runner aims for.
+     *
+     * @param targetSpeed The instructions per second, or zero if the runner is unthrottled.
+     */
+    public void setTargetSpeed(final int targetSpeed) {
+        this.targetSpeed = targetSpeed;
+    }
+
+    /**
+     * Copies the counters.
+     *
+     * @param time The current time in nanoseconds, for the rates between snapshots.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot(final long time) {
+        final Snapshot snapshot = new Snapshot();
+        snapshot.time = time;
+        System.arraycopy(instructions, 0, snapshot.instructions, 0, Instruction.COUNT);
+        snapshot.cycles = cycles;
+        snapshot.ticks = ticks;
+        snapshot.draws = draws;
+        snapshot.collisions = collisions;
+        snapshot.slices = slices;
+        snapshot.drift = drift;
+        snapshot.maxDrift = maxDrift;
+        snapshot.frames = frames;
+        snapshot.renderTime = renderTime;
+        snapshot.maxRenderTime = maxRenderTime;
+        snapshot.targetSpeed = targetSpeed;
+        return snapshot;
+    }
+
+    /**
+     * The counters at one point in time. The rates are measured between two snapshots.
+     */
+    public static final class Snapshot {
+
+        /**
+         * The number of times every instruction had been executed.
+         */
+        private final long[] instructions = new long[Instruction.COUNT];
+
+        /**
+         * The time the snapshot was taken in nanoseconds.
+         */
+        private long time;
+
+        /**
+         * The number of cycles executed.
+         */
+        private long cycles;
+
+        /**
+         * The number of timer ticks.
+         */
+        private long ticks;
+
+        /**
+         * The number of sprites drawn.
+         */
+        private long draws;
+
+        /**
+         * The number of sprites drawn which erased a pixel.
+         */
+        private long collisions;
+
+        /**
+         * The number of timeslices started.
+         */
+        private long slices;
+
+        /**
+         * The total nanoseconds timeslices started late.
+         */
+        private long drift;
+
+        /**
+         * The most nanoseconds a timeslice started late.
+         */
+        private long maxDrift;
+
+        /**
+         * The number of frames rendered.
+         */
+        private long frames;
+
+        /**
+         * The total nanoseconds spent rendering.
+         */
+        private long renderTime;
+
+        /**
+         * The most nanoseconds spent rendering a frame.
+         */
+        private long maxRenderTime;
+
+        /**
+         * The target instructions per second.
+         */
+        private int targetSpeed;
+
+        /**
+         * Constructs a new empty snapshot.
+         */
+        private Snapshot() {
+        }
+
+        /**
+         * Gets the time the snapshot was taken in nanoseconds.
+         *
+         * @return The time.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Gets the number of times the specified instruction had been executed.
+         *
+         * @param instruction The instruction.
+         * @return The number of executions.
+         */
+        public long getInstructions(final int instruction) {
+            return instructions[instruction];
+        }
+
+        /**
+         * Gets the number of cycles executed.
+         *
+         * @return The number of cycles.
+         */
+        public long getCycles() {
+            return cycles;
+        }
+
+        /**
+         * Gets the instructions per second the runner aims for.
+         *
+         * @return The instructions per second, or zero if the runner is unthrottled.
+         */
+        public int getTargetSpeed() {
+            return targetSpeed;
+        }
+
+        /**
+         * Gets the cycles executed per second between the specified earlier snapshot and this one.
+         *
+         * @param since The earlier snapshot.
+         * @return The cycles per second.
+         */
+        public double getSpeed(final Snapshot since) {
+            final long elapsed = time - since.time;
+            return elapsed <= 0 ? 0 : (cycles - since.cycles) * 1e9 / elapsed;
+        }
+
+        /**
+         * Gets the sprites drawn per 60 Hz frame between the specified earlier snapshot and this one.
+         *
+         * @param since The earlier snapshot.
+         * @return The sprites per frame.
+         */
+        public double getDrawsPerFrame(final Snapshot since) {
+            return ratio(draws - since.draws, ticks - since.ticks);
+        }
+
+        /**
+         * Gets the fraction of sprites drawn which erased a pixel between the specified earlier snapshot and this one.
+         *
+         * @param since The earlier snapshot.
+         * @return The fraction.
+         */
+        public double getCollisionRate(final Snapshot since) {
+            return ratio(collisions - since.collisions, draws - since.draws);
+        }
+
+        /**
+         * Gets the mean nanoseconds timeslices started late between the specified earlier snapshot and this one.
+         *
+         * @param since The earlier snapshot.
+         * @return The nanoseconds.
+         */
+        public double getMeanDrift(final Snapshot since) {
+            return ratio(drift - since.drift, slices - since.slices);
+        }
+
+        /**
+         * Gets the most nanoseconds a timeslice has started late.
+         *
+         * @return The nanoseconds.
+         */
+        public long getMaxDrift() {
+            return maxDrift;
+        }
+
+        /**
+         * Gets the mean nanoseconds spent rendering a frame between the specified earlier snapshot and this one.
+         *
+         * @param since The earlier snapshot.
+         * @return The nanoseconds.
+         */
+        public double getMeanRenderTime(final Snapshot since) {
+            return ratio(renderTime - since.renderTime, frames - since.frames);
+        }
+
+        /**
+         * Gets the most nanoseconds spent rendering a frame.
+         *
+         * @return The nanoseconds.
+         */
+        public long getMaxRenderTime() {
+            return maxRenderTime;
+        }
+
+        /**
+         * Divides the specified counts, or returns zero if the divisor is zero.
+         *
+         * @param count   The dividend.
+         * @param divisor The divisor.
+         * @return The ratio.
+         */
+        private static double ratio(final long count, final long divisor) {
+            return divisor == 0 ? 0 : (double) count / divisor;
+        }
+    }
+}
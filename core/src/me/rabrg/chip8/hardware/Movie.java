@@ -0,0 +1,245 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A recording of the keypad state of every 60 Hz frame of a run, with the seed of its random numbers. Playing a movie
+ * back on a machine with the same ROM loaded reproduces the run cycle for cycle, so runs can be stored and compared as
+ * a few bytes of input rather than re-executed. The key state only changes at frame boundaries, and is stored as runs
+ * of unchanged frames.
+ */
+public final class Movie {
+
+    /**
+     * The bytes every movie starts with.
+     */
+    private static final int MAGIC = 0x43384D56;
+
+    /**
+     * The version of the format written.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of bytes of the header.
+     */
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 2 + 4;
+
+    /**
+     * The seed of the random numbers.
+     */
+    private final long seed;
+
+    /**
+     * The number of cycles of every frame.
+     */
+    private final int cyclesPerFrame;
+
+    /**
+     * The keypad state of every frame, bit n set if key n is down.
+     */
+    private int[] frames = new int[0x100];
+
+    /**
+     * The number of frames.
+     */
+    private int length;
+
+    /**
+     * Constructs a new empty movie with the specified seed and frame length.
+     *
+     * @param seed           The seed of the random numbers.
+     * @param cyclesPerFrame The number of cycles of every frame.
+     */
+    public Movie(final long seed, final int cyclesPerFrame) {
+        if (cyclesPerFrame <= 0 || cyclesPerFrame > 0xFFFF)
+            throw new IllegalArgumentException("cyclesPerFrame out of range: " + cyclesPerFrame);
+        this.seed = seed;
+        this.cyclesPerFrame = cyclesPerFrame;
+    }
+
+    /**
+     * Constructs a new empty movie with the specified seed and the frame length of the default timer.
+     *
+     * @param seed The seed of the random numbers.
+     */
+    public Movie(final long seed) {
+        this(seed, Processor.UPDATE_RATE / Processor.CYCLE_RATE);
+    }
+
+    /**
+     * Prepares the specified machine, with the ROM just loaded, to record or play the movie from its first frame. The
+     * random numbers are seeded, the timer is started on a frame boundary and every key is released.
+     *
+     * @param machine The machine.
+     */
+    public void start(final Machine machine) {
+        machine.getProcessor().setSeed(seed);
+        machine.getTimer().setPhase(0);
+        machine.getKeyboard().reset();
+    }
+
+    /**
+     * Executes a frame on the specified machine with the specified keypad state, appending it to the movie.
+     *
+     * @param machine The machine.
+     * @param keys    The keypad state, bit n set if key n is down.
+     */
+    public void record(final Machine machine, final int keys) {
+        append(keys);
+        play(machine, length - 1);
+    }
+
+    /**
+     * Appends a frame with the specified keypad state, growing the frames as needed.
+     *
+     * @param keys The keypad state, bit n set if key n is down.
+     */
+    private void append(final int keys) {
+        if (length == frames.length) {
+            final int[] frames = new int[length * 2];
+            System.arraycopy(this.frames, 0, frames, 0, length);
+            this.frames = frames;
+        }
+        frames[length++] = keys & 0xFFFF;
+    }
+
+    /**
+     * Executes the specified frame of the movie on the specified machine.
+     *
+     * @param machine The machine.
+     * @param frame   The frame.
+     */
+    public void play(final Machine machine, final int frame) {
+        if (frame < 0 || frame >= length)
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + length);
+        machine.getKeyboard().setKeys(frames[frame]);
+        machine.run(cyclesPerFrame);
+    }
+
+    /**
+     * Plays the whole movie on the specified machine, with the ROM just loaded.
+     *
+     * @param machine The machine.
+     */
+    public void play(final Machine machine) {
+        start(machine);
+        for (int frame = 0; frame < length; frame++)
+            play(machine, frame);
+    }
+
+    /**
+     * Gets the keypad state of the specified frame.
+     *
+     * @param frame The frame.
+     * @return The keypad state, bit n set if key n is down.
+     */
+    public int getKeys(final int frame) {
+        if (frame < 0 || frame >= length)
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + length);
+        return frames[frame];
+    }
+
+    /**
+     * Gets the number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets the seed of the random numbers.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of cycles of every frame.
+     *
+     * @return The number of cycles.
+     */
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    /**
+     * Encodes the movie: a header with the seed, frame length and number of frames, followed by every run of frames
+     * with the same keypad state as the state and a varint run length.
+     *
+     * @return The bytes.
+     */
+    public byte[] toByteArray() {
+        int size = HEADER_SIZE;
+        for (int frame = 0; frame < length; ) {
+            final int run = run(frame);
+            size += 2 + (32 - Integer.numberOfLeadingZeros(run) + 6) / 7;
+            frame += run;
+        }
+        final byte[] data = new byte[size];
+        final StateBuffer buffer = new StateBuffer(data);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(seed);
+        buffer.putShort(cyclesPerFrame);
+        buffer.putInt(length);
+        for (int frame = 0; frame < length; ) {
+            final int run = run(frame);
+            buffer.putShort(frames[frame]);
+            buffer.putVarint(run);
+            frame += run;
+        }
+        return data;
+    }
+
+    /**
+     * Gets the number of frames from the specified frame with its keypad state.
+     *
+     * @param from The first frame.
+     * @return The number of frames.
+     */
+    private int run(final int from) {
+        int to = from + 1;
+        while (to < length && frames[to] == frames[from])
+            to++;
+        return to - from;
+    }
+
+    /**
+     * Decodes the specified bytes, previously returned by {@link #toByteArray()}, as a movie.
+     *
+     * @param data The bytes.
+     * @return The movie.
+     * @throws IllegalArgumentException If the bytes aren't a movie of a supported version.
+     */
+    public static Movie of(final byte[] data) {
+        if (data.length < HEADER_SIZE)
+            throw new IllegalArgumentException("Movie too short: " + data.length + " bytes");
+        final StateBuffer buffer = new StateBuffer(data);
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a movie");
+        final int version = buffer.get();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported movie version: " + version);
+        final Movie movie = new Movie(buffer.getLong(), buffer.getShort());
+        final int length = buffer.getInt();
+        if (length < 0)
+            throw new IllegalArgumentException("Negative movie length: " + length);
+        // grown as runs are decoded rather than trusting the length, which a corrupt header may inflate
+        try {
+            while (movie.length < length) {
+                final int keys = buffer.getShort();
+                final int run = buffer.getVarint();
+                if (run <= 0 || run > length - movie.length)
+                    throw new IllegalArgumentException("Corrupt movie run: " + run);
+                for (int frame = 0; frame < run; frame++)
+                    movie.append(keys);
+            }
+        } catch (final ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated movie");
+        }
+        return movie;
+    }
+}
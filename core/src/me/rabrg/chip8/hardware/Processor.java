@@ -1,11 +1,5 @@
 package me.rabrg.chip8.hardware;
 
-import com.badlogic.gdx.Gdx;
-
-import java.util.Random;
-
-import me.rabrg.chip8.CHIP8Emulator;
-
 public final class Processor {
 
     /**
@@ -13,15 +7,10 @@ public final class Processor {
      */
     public static final int CYCLE_RATE = 1000 / 500;
 
-    /**
-     * The random instance for opcode CXNN.
-     */
-    private static final Random RANDOM = new Random();
-
     /**
      * The font data which is loaded into the beginning of the memory.
      */
-    private static final int[] FONT = {
+    static final int[] FONT = {
             0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
             0x20, 0x60, 0x20, 0x20, 0x70, // 1
             0xF0, 0x10, 0xF0, 0x80, 0xF0, // 2
@@ -42,22 +31,27 @@ public final class Processor {
     /**
      * The update rate for timers and repainting in milliseconds.
      */
-    private static final int UPDATE_RATE = 1000 / 60;
+    public static final int UPDATE_RATE = 1000 / 60;
 
     /**
-     * The amount of memory.
+     * The offset of the ROM in memory.
      */
-    private static final int MEMORY_SIZE = 0xFFF;
+    static final int ROM_START = 0x200;
 
     /**
-     * The offset of the ROM in memory.
+     * The maximum number of bytes of a ROM, which fills the memory after its offset.
      */
-    private static final int ROM_START = 0x200;
+    public static final int MAX_ROM_SIZE = Memory.SIZE - ROM_START;
+
+    /**
+     * The number of bytes of the processor state in a save state.
+     */
+    static final int STATE_SIZE = Memory.SIZE + 0x10 + 0x10 * 2 + 2 + 2 + 1 + 1 + 1 + 1 + 8;
 
     /**
      * The memory of the emulator.
      */
-    private final int[] memory = new int[MEMORY_SIZE];
+    private final Memory memory = new Memory();
 
     /**
      * The stack used to store return addresses when subroutines are called.
@@ -70,14 +64,44 @@ public final class Processor {
     private final int[] register = new int[0x10];
 
     /**
-     * The emulator instance for display and input opcodes.
+     * The random numbers for opcode CXNN, seeded differently for every processor unless seeded explicitly.
+     */
+    private final SplitMix random = new SplitMix((long) (Math.random() * Long.MAX_VALUE));
+
+    /**
+     * The runtime counters, updated only if {@link Metrics#ENABLED}.
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * The decoded blocks for the block engine.
+     */
+    private final BlockCache blocks = new BlockCache(Memory.SIZE);
+
+    /**
+     * The display for drawing opcodes.
+     */
+    private final Display display;
+
+    /**
+     * The keyboard for input opcodes.
      */
-    private final CHIP8Emulator emulator;
+    private final Keyboard keyboard;
 
     /**
-     * The tick to keep track of timers and display updates.
+     * The timer to keep track of timers and display updates.
      */
-    private int tick;
+    private final Timer timer;
+
+    /**
+     * The engine executing instructions.
+     */
+    private Engine engine = Engine.INTERPRETER;
+
+    /**
+     * The translation executed by the {@link Engine#AOT} engine, or null if there is none.
+     */
+    private Translation translation;
 
     /**
      * The program counter.
@@ -105,214 +129,835 @@ public final class Processor {
     private int dt;
 
     /**
-     * Constructs a new processor for the specified emulator.
+     * The register waiting for a key press by opcode FX0A, or -1 if the processor isn't waiting.
+     */
+    private int waiting = -1;
+
+    /**
+     * Whether or not idle loops are fast-forwarded.
+     */
+    private boolean fastForward = true;
+
+    /**
+     * Whether or not the last jump was a short backward jump which may close an idle loop.
+     */
+    private boolean looped;
+
+    /**
+     * The number of instructions executed, excluding fast-forwarded cycles and cycles spent waiting for a key.
+     */
+    private long instructions;
+
+    /**
+     * Constructs a new processor for the specified hardware.
      *
-     * @param emulator The emulator.
+     * @param display  The display.
+     * @param keyboard The keyboard.
+     * @param timer    The timer.
      */
-    public Processor(final CHIP8Emulator emulator) {
-        this.emulator = emulator;
+    public Processor(final Display display, final Keyboard keyboard, final Timer timer) {
+        this.display = display;
+        this.keyboard = keyboard;
+        this.timer = timer;
 
-        System.arraycopy(FONT, 0, memory, 0, FONT.length);
+        for (int address = 0; address < FONT.length; address++)
+            memory.set(address, FONT[address]);
     }
 
     /**
      * Executes a processor cycle.
      */
     public void execute() {
-        decode(memory[pc++] << 8 | memory[pc++]);
-        if (tick == (UPDATE_RATE / CYCLE_RATE)) {
+        if (waiting != -1 && !resume()) {
+            update();
+            return;
+        }
+        final int opcode = memory.getOpcode(pc);
+        pc = (pc + 2) & Memory.MASK;
+        decode(Instruction.of(opcode), opcode);
+        instructions++;
+        update();
+    }
+
+    /**
+     * Executes the specified number of processor cycles with the current engine.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void run(final int cycles) {
+        if (engine == Engine.INTERPRETER) {
+            for (int c = 0; c < cycles; c++) {
+                execute();
+                if (looped) {
+                    looped = false;
+                    c += skipIdle(cycles - c - 1);
+                }
+            }
+            return;
+        }
+        int remaining = cycles;
+        while (remaining > 0) {
+            if (waiting != -1 && !resume()) {
+                update();
+                remaining--;
+                continue;
+            }
+            pc &= Memory.MASK;
+            if (engine == Engine.AOT && translation != null) {
+                final int executed = translation.execute(remaining);
+                if (executed > 0) {
+                    remaining -= executed;
+                    instructions += executed;
+                    if (looped) {
+                        looped = false;
+                        remaining -= skipIdle(remaining);
+                    }
+                    continue;
+                }
+            }
+            final int[] block = blocks.get(memory, pc);
+            final int length = Math.min(block.length, remaining);
+            for (int j = 0; j < length; j++) {
+                final int op = block[j];
+                pc = (pc + 2) & Memory.MASK;
+                decode(op >>> 16, op & 0xFFFF);
+                update();
+            }
+            remaining -= length;
+            instructions += length;
+            if (looped) {
+                looped = false;
+                remaining -= skipIdle(remaining);
+            }
+        }
+    }
+
+    /**
+     * Skips as many of the specified number of cycles as can be skipped without changing the outcome, if the program
+     * counter is at the start of an idle loop. Two loops are recognized: a jump to itself, which spins until the budget
+     * runs out, and the delay timer poll of FX07, 3XNN or 4XNN on the same register, and a jump back to the FX07, which
+     * spins until the timer reaches or leaves NN. Whole iterations are skipped by applying their effects directly: the
+     * last value read into the register, the timer updates and the keyboard polls.
+     *
+     * @param budget The number of cycles which may be skipped.
+     * @return The number of cycles skipped.
+     */
+    private int skipIdle(final int budget) {
+        final int period = timer.getPeriod();
+        if (budget <= 0 || period == 0 || waiting != -1)
+            return 0;
+        final int phase = timer.getPhase();
+        final int read = memory.getOpcode(pc);
+        if (read == (0x1000 | pc)) {
+            if (Metrics.ENABLED)
+                metrics.instruction(Instruction.JP, budget);
+            advance(budget, phase, period);
+            return budget;
+        }
+
+        final int test = memory.getOpcode(pc + 2);
+        final int x = (read >>> 8) & 0xF;
+        if ((read & 0xF0FF) != 0xF007 || memory.getOpcode(pc + 4) != (0x1000 | pc)
+                || ((test & 0xF000) != 0x3000 && (test & 0xF000) != 0x4000) || ((test >>> 8) & 0xF) != x)
+            return 0;
+        final int value = test & 0xFF;
+        final boolean equal = (test & 0xF000) == 0x3000;
+
+        // the iteration which first reads the value ending the loop, each iteration reading dt on its first cycle
+        final long exit;
+        if (equal ? dt == value : dt != value)
+            exit = 0;
+        else if (equal ? dt < value : dt == 0)
+            exit = Long.MAX_VALUE;
+        else
+            exit = ((long) (equal ? dt - value : 1) * period - phase + 2) / 3;
+        final int iterations = (int) Math.min(exit, budget / 3);
+        if (iterations == 0)
+            return 0;
+
+        final int skipped = iterations * 3;
+        register[x] = Math.max(0, dt - (phase + skipped - 3) / period);
+        if (Metrics.ENABLED) {
+            metrics.instruction(Instruction.LD_DT, iterations);
+            metrics.instruction(equal ? Instruction.SE_BYTE : Instruction.SNE_BYTE, iterations);
+            metrics.instruction(Instruction.JP, iterations);
+        }
+        advance(skipped, phase, period);
+        return skipped;
+    }
+
+    /**
+     * Applies the updates at the end of the specified number of skipped cycles.
+     *
+     * @param cycles The number of cycles.
+     * @param phase  The phase of the timer before the cycles.
+     * @param period The number of cycles between timer updates.
+     */
+    private void advance(final int cycles, final int phase, final int period) {
+        final int ticks = (int) (((long) phase + cycles) / period);
+        for (int t = 0; t < ticks; t++) {
+            keyboard.poll();
+            keyboard.frame();
+        }
+        if ((phase + cycles) % period != 0)
+            keyboard.poll();
+        dt = Math.max(0, dt - ticks);
+        st = Math.max(0, st - ticks);
+        timer.setPhase((int) (((long) phase + cycles) % period));
+        if (Metrics.ENABLED) {
+            metrics.cycles(cycles);
+            metrics.ticks(ticks);
+        }
+    }
+
+    /**
+     * Resumes execution if the key the processor is waiting for has been pressed.
+     *
+     * @return Whether or not the processor has resumed.
+     */
+    private boolean resume() {
+        if (!keyboard.isPressed())
+            return false;
+        register[waiting] = keyboard.getLastPressed();
+        waiting = -1;
+        return true;
+    }
+
+    /**
+     * Gets the program counter.
+     *
+     * @return The program counter.
+     */
+    public int getProgramCounter() {
+        return pc;
+    }
+
+    /**
+     * Returns whether or not the processor is waiting for a key press by opcode FX0A.
+     *
+     * @return Whether or not the processor is waiting.
+     */
+    public boolean isWaiting() {
+        return waiting != -1;
+    }
+
+    /**
+     * Returns whether or not nothing observable can happen until a key is pressed, because the processor is waiting for
+     * a key press and both timers have stopped.
+     *
+     * @return Whether or not the processor is idle.
+     */
+    public boolean isIdle() {
+        return waiting != -1 && dt == 0 && st == 0 && !keyboard.isPressed() && !keyboard.hasQueued();
+    }
+
+    /**
+     * Applies the queued key events and updates the timers if a timer update is due, at the end of every cycle.
+     */
+    private void update() {
+        keyboard.poll();
+        if (Metrics.ENABLED)
+            metrics.cycle();
+        if (timer.tick()) {
+            if (Metrics.ENABLED)
+                metrics.tick();
             if (dt > 0) dt--;
             if (st > 0) {
 //                if (st == 1)
 //                    Toolkit.getDefaultToolkit().beep(); // TODO: beep
                 st--;
             }
-            emulator.getDisplay().render = true;
-            tick = 0;
+            keyboard.frame();
         }
-        tick++;
     }
 
     /**
-     * Loads the ROM at the specified directory.
+     * Resets the processor and loads the specified ROM.
      *
-     * @param dir The directory.
-     */
-    public void loadROM(final String dir) {
-        try {
-            for (int i = ROM_START; i < MEMORY_SIZE; i++) {
-                memory[i] = 0;
-                if (i - ROM_START < 0x10) {
-                    stack[i - ROM_START] = 0;
-                    register[i - ROM_START] = 0;
-                }
-            }
-            pc = ROM_START;
-            i = sp = dt = st = 0;
+     * @param rom The ROM bytes.
+     */
+    public void loadROM(final byte[] rom) {
+        if (rom.length > MAX_ROM_SIZE)
+            throw new IllegalArgumentException("ROM too large: " + rom.length + " bytes");
+
+        memory.clear(ROM_START, Memory.SIZE);
+        for (int r = 0; r < 0x10; r++) {
+            stack[r] = 0;
+            register[r] = 0;
+        }
+        pc = ROM_START;
+        i = sp = dt = st = 0;
+        waiting = -1;
+        blocks.clear();
+
+        display.clear();
+
+        memory.write(rom, ROM_START);
+        if (translation != null)
+            translation.validate();
+    }
+
+    /**
+     * Gets the memory.
+     *
+     * @return The memory.
+     */
+    public Memory getMemory() {
+        return memory;
+    }
+
+    /**
+     * Gets the runtime counters, which stay zero unless {@link Metrics#ENABLED}.
+     *
+     * @return The counters.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the number of instructions executed, which unlike the cycles run excludes the cycles of fast-forwarded idle
+     * loops and of waiting for a key. It counts whether or not {@link Metrics#ENABLED}.
+     *
+     * @return The number of instructions.
+     */
+    public long getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Seeds the random numbers of opcode CXNN, making them reproducible.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(final long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Enables or disables fast-forwarding idle loops polling the delay timer or jumping to themselves. It doesn't
+     * change the outcome of a run, only how many instructions are interpreted; disable it to interpret every cycle.
+     *
+     * @param fastForward Whether or not idle loops are fast-forwarded.
+     */
+    public void setFastForward(final boolean fastForward) {
+        this.fastForward = fastForward;
+        looped = false;
+    }
+
+    /**
+     * Sets the engine executing instructions.
+     *
+     * @param engine The engine.
+     */
+    public void setEngine(final Engine engine) {
+        this.engine = engine;
+    }
 
-            emulator.getDisplay().clear();
+    /**
+     * Gets the engine executing instructions.
+     *
+     * @return The engine.
+     */
+    public Engine getEngine() {
+        return engine;
+    }
 
-            final byte[] rom = Gdx.files.internal(dir).readBytes();
-            for (int i = 0; i < rom.length; i++)
-                memory[i + ROM_START] = rom[i] & 0xFF;
-        } catch (final Exception e) {
-            System.out.println("Couldn't load ROM " + dir);
+    /**
+     * Sets the translation executed by the {@link Engine#AOT} engine. Only the blocks of the translation matching the
+     * memory are executed, so it may be set before or after its ROM is loaded.
+     *
+     * @param translation The translation, or null to remove it.
+     * @throws IllegalStateException If the translation is already set on another processor.
+     */
+    public void setTranslation(final Translation translation) {
+        if (translation != null) {
+            if (translation.processor != null && translation.processor != this)
+                throw new IllegalStateException("Translation already set on another processor");
+            translation.processor = this;
+            translation.validate();
         }
+        if (this.translation != null && this.translation != translation)
+            this.translation.processor = null;
+        this.translation = translation;
+    }
+
+    /**
+     * Gets the translation executed by the {@link Engine#AOT} engine.
+     *
+     * @return The translation, or null if there is none.
+     */
+    public Translation getTranslation() {
+        return translation;
     }
 
     /**
      * Decodes the specified opcode.
      *
-     * @param opcode The opcode.
+     * @param instruction The instruction of the opcode.
+     * @param opcode      The opcode.
      */
-    private void decode(final int opcode) {
-        switch (opcode) {
-            case 0x00E0:
-                emulator.getDisplay().clear();
-                return;
-            case 0x00EE:
+    private void decode(final int instruction, final int opcode) {
+        final int x = (opcode >>> 8) & 0xF;
+        final int y = (opcode >>> 4) & 0xF;
+        if (Metrics.ENABLED)
+            metrics.instruction(instruction);
+        switch (instruction) {
+            case Instruction.CLS:
+                display.clear();
+                return;
+            case Instruction.RET:
                 pc = stack[sp--];
                 return;
-        }
-        switch (opcode & 0xF000) {
-            case 0x1000:
+            case Instruction.JP:
+                if (fastForward && ((opcode & 0xFFF) == pc - 2 || (opcode & 0xFFF) == pc - 6))
+                    looped = true;
                 pc = opcode & 0xFFF;
                 return;
-            case 0x2000:
+            case Instruction.CALL:
                 stack[++sp] = pc;
                 pc = opcode & 0xFFF;
                 return;
-            case 0x3000:
-                if (register[(opcode & 0xF00) >>> 4 * 2] == (opcode & 0xFF))
+            case Instruction.SE_BYTE:
+                if (register[x] == (opcode & 0xFF))
                     pc += 2;
                 return;
-            case 0x4000:
-                if (register[(opcode & 0xF00) >>> 4 * 2] != (opcode & 0xFF))
+            case Instruction.SNE_BYTE:
+                if (register[x] != (opcode & 0xFF))
                     pc += 2;
                 return;
-            case 0x6000:
-                register[(opcode & 0xF00) >>> 4 * 2] = opcode & 0xFF;
-                return;
-            case 0x7000:
-                int x = ((opcode & 0xF00) >>> 4 * 2);
-                register[x] = ((register[x] + (opcode & 0x0FF)) & 0xFF);
-                return;
-            case 0xA000:
-                i = (opcode & 0xFFF);
+            case Instruction.SE_REG:
+                if (register[x] == register[y])
+                    pc += 2;
                 return;
-            case 0xB000:
-                pc = (opcode & 0xFFF) + register[0];
+            case Instruction.LD_BYTE:
+                register[x] = opcode & 0xFF;
                 return;
-            case 0xC000:
-                register[(opcode & 0xF00) >>> 4 * 2] = ((RANDOM.nextInt(256)) & (opcode & 0x0FF));
+            case Instruction.ADD_BYTE:
+                register[x] = (register[x] + (opcode & 0xFF)) & 0xFF;
                 return;
-            case 0xD000:
-                x = (opcode & 0xF);
-                final int[] sprite = new int[x];
-                for (int j = i, count = 0; j < i + x; j++, count++)
-                    sprite[count] = memory[j];
-                final boolean erased = emulator.getDisplay().draw(register[(opcode & 0xF00) >>> 4 * 2],
-                        register[(opcode & 0xF0) >>> 4], sprite);
-                register[0xF] = (erased ? 1 : 0);
+            case Instruction.LD_REG:
+                register[x] = register[y];
                 return;
-        }
-        switch (opcode & 0xF00F) {
-            case 0x5000:
-                if (register[(opcode & 0xF00) >>> 4 * 2] == register[(opcode & 0xF0) >>> 4])
-                    pc += 2;
+            case Instruction.OR:
+                register[x] = register[x] | register[y];
                 return;
-            case 0x8000:
-                register[(opcode & 0xF00) >>> 4 * 2] = register[(opcode & 0xF0) >>> 4];
+            case Instruction.AND:
+                register[x] = register[x] & register[y];
                 return;
-            case 0x8001:
-                int x = ((opcode & 0xF00) >>> 4 * 2);
-                register[x] = (register[x] | register[(opcode & 0xF0) >>> 4]);
+            case Instruction.XOR:
+                register[x] = register[x] ^ register[y];
                 return;
-            case 0x8002:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                register[x] = (register[x] & register[(opcode & 0x0F0) >>> 4]);
-                return;
-            case 0x8003:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                register[x] = (register[x] ^ register[(opcode & 0xF0) >>> 4]);
-                return;
-            case 0x8004:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                int sum = register[x] + register[(opcode & 0xF0) >>> 4];
+            case Instruction.ADD_REG:
+                final int sum = register[x] + register[y];
                 register[0xF] = sum > 0xFF ? 1 : 0;
-                register[x] = (sum & 0xFF);
+                register[x] = sum & 0xFF;
                 return;
-            case 0x8005:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                int y = ((opcode & 0xF0) >>> 4);
+            case Instruction.SUB:
                 register[0xF] = register[x] > register[y] ? 1 : 0;
                 register[x] = (register[x] - register[y]) & 0xFF;
                 return;
-            case 0x8006:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                register[0xF] = (register[x] & 0x1) == 1 ? 1 : 0;
-                register[x] = (register[x] >>> 1);
+            case Instruction.SHR:
+                register[0xF] = register[x] & 0x1;
+                register[x] = register[x] >>> 1;
                 return;
-            case 0x8007:
-                x = ((opcode & 0xF00) >>> 4 * 2);
-                y = ((opcode & 0xF0) >>> 4);
+            case Instruction.SUBN:
                 register[0xF] = register[y] > register[x] ? 1 : 0;
-                register[x] = ((register[y] - register[x]) & 0xFF);
+                register[x] = (register[y] - register[x]) & 0xFF;
                 return;
-            case 0x800E:
-                x = ((opcode & 0xF00) >>> (4 * 2));
-                register[0xF] = (register[x] >>> 7) == 0x1 ? 1 : 0;
-                register[x] = ((register[x] << 1) & 0xFF);
+            case Instruction.SHL:
+                register[0xF] = register[x] >>> 7;
+                register[x] = (register[x] << 1) & 0xFF;
                 return;
-            case 0x9000:
-                if (register[(opcode & 0xF00) >>> (4 * 2)] != register[(opcode & 0xF0) >>> 4])
+            case Instruction.SNE_REG:
+                if (register[x] != register[y])
                     pc += 2;
                 return;
-        }
-        switch (opcode & 0xF0FF) {
-            case 0xE09E:
-                if (emulator.getKeyboard().isKeyPressed((register[(opcode & 0xF00) >>> (4 * 2)])))
+            case Instruction.LD_I:
+                i = opcode & 0xFFF;
+                return;
+            case Instruction.JP_V0:
+                pc = ((opcode & 0xFFF) + register[0]) & Memory.MASK;
+                return;
+            case Instruction.RND:
+                register[x] = random.nextByte() & opcode & 0xFF;
+                return;
+            case Instruction.DRW:
+                final boolean erased = display.draw(register[x], register[y], memory.array(), 0, i, opcode & 0xF);
+                register[0xF] = erased ? 1 : 0;
+                if (Metrics.ENABLED)
+                    metrics.draw(erased);
+                return;
+            case Instruction.SKP:
+                if (keyboard.isKeyPressed(register[x]))
                     pc += 2;
                 return;
-            case 0xE0A1:
-                if (!emulator.getKeyboard().isKeyPressed((register[(opcode & 0xF00) >>> (4 * 2)])))
+            case Instruction.SKNP:
+                if (!keyboard.isKeyPressed(register[x]))
                     pc += 2;
                 return;
-            case 0xF007:
-                register[(opcode & 0xF00) >>> 4 * 2] = (dt & 0xFF);
+            case Instruction.LD_DT:
+                register[x] = dt & 0xFF;
                 return;
-            case 0xF00A:
-                emulator.getKeyboard().depress();
-                while (!emulator.getKeyboard().isPressed()) ; // TODO: make not shit
-                for (int j = 0, x = (opcode & 0xF00) >>> 4 * 2; j <= 0xF; j++)
-                    if (emulator.getKeyboard().isKeyPressed(j)) {
-                        register[x] = j;
-                        return;
-                    }
+            case Instruction.LD_KEY:
+                keyboard.depress();
+                waiting = x;
                 return;
-            case 0xF015:
-                dt = register[(opcode & 0xF00) >>> 4 * 2];
+            case Instruction.SET_DT:
+                dt = register[x];
                 return;
-            case 0xF018:
-                st = register[(opcode & 0xF00) >>> 4 * 2];
+            case Instruction.SET_ST:
+                st = register[x];
                 return;
-            case 0xF01E:
-                i = (i + register[(opcode & 0xF00) >>> 4 * 2]) & 0xFFF;
+            case Instruction.ADD_I:
+                i = (i + register[x]) & 0xFFF;
                 return;
-            case 0xF029:
-                i = register[(opcode & 0xF00) >>> 4 * 2] * 5;
+            case Instruction.LD_FONT:
+                i = register[x] * 5;
                 return;
-            case 0xF033:
-                int x = ((opcode & 0xF00) >>> 4 * 2);
-                memory[i] = (register[x] / 100);
-                memory[i + 1] = ((register[x] - memory[i]) / 10);
-                memory[i + 2] = (register[x] - memory[i] - memory[i + 1]);
+            case Instruction.BCD:
+                final int hundreds = register[x] / 100;
+                final int tens = (register[x] - hundreds) / 10;
+                memory.store(i, hundreds, tens, register[x] - hundreds - tens);
+                blocks.invalidate(i, i + 3);
+                if (translation != null)
+                    translation.invalidate(i, i + 3);
                 return;
-            case 0xF055:
-                System.arraycopy(register, 0, memory, i, ((opcode & 0xF00) >>> 4 * 2) + 1);
+            case Instruction.STORE:
+                memory.store(register, i, x + 1);
+                blocks.invalidate(i, i + x + 1);
+                if (translation != null)
+                    translation.invalidate(i, i + x + 1);
                 return;
-            case 0xF065:
-                System.arraycopy(memory, i, register, 0, ((opcode & 0xF00) >>> 4 * 2) + 1);
+            case Instruction.LOAD:
+                memory.load(register, i, x + 1);
+        }
+    }
+
+    /**
+     * Writes the state of the processor to the specified save state buffer.
+     *
+     * @param buffer The buffer.
+     */
+    void save(final StateBuffer buffer) {
+        memory.save(buffer);
+        for (int r = 0; r < register.length; r++)
+            buffer.put(register[r]);
+        for (int s = 0; s < stack.length; s++)
+            buffer.putShort(stack[s]);
+        buffer.putShort(pc);
+        buffer.putShort(i);
+        buffer.put(sp);
+        buffer.put(dt);
+        buffer.put(st);
+        buffer.put(waiting);
+        buffer.putLong(random.getState());
+    }
+
+    /**
+     * Checks the state of a processor in the specified save state buffer, skipping over it.
+     *
+     * @param buffer The buffer.
+     * @throws IllegalArgumentException If a return address, the program counter, the address pointer, the stack
+     *                                  pointer or the register waiting for a key is out of range.
+     */
+    static void check(final StateBuffer buffer) {
+        buffer.skip(Memory.SIZE + 0x10);
+        for (int s = 0; s < 0x10; s++)
+            check("return address", buffer.getShort(), 0, Memory.MASK);
+        // a skip can leave the program counter past the end of memory until the next fetch wraps it
+        check("program counter", buffer.getShort(), 0, Memory.MASK + 2);
+        check("address pointer", buffer.getShort(), 0, Memory.MASK);
+        check("stack pointer", (byte) buffer.get(), -1, 0xF);
+        buffer.skip(2);
+        check("waiting register", (byte) buffer.get(), -1, 0xF);
+        buffer.skip(8);
+    }
+
+    /**
+     * Checks that the specified value of a save state is within the specified range.
+     *
+     * @param name  The name of the value.
+     * @param value The value.
+     * @param min   The minimum, inclusive.
+     * @param max   The maximum, inclusive.
+     * @throws IllegalArgumentException If the value is out of range.
+     */
+    private static void check(final String name, final int value, final int min, final int max) {
+        if (value < min || value > max)
+            throw new IllegalArgumentException("Save state " + name + " out of range: " + value);
+    }
+
+    /**
+     * Reads the state of the processor from the specified save state buffer. The decoded blocks are kept if the code
+     * they were decoded from is unchanged, so restoring states of the same run doesn't decode them over again.
+     *
+     * @param buffer The buffer.
+     */
+    void load(final StateBuffer buffer) {
+        blocks.retain(buffer.array(), buffer.position());
+        memory.load(buffer);
+        for (int r = 0; r < register.length; r++)
+            register[r] = buffer.get();
+        for (int s = 0; s < stack.length; s++)
+            stack[s] = buffer.getShort();
+        pc = buffer.getShort();
+        i = buffer.getShort();
+        sp = (byte) buffer.get();
+        dt = buffer.get();
+        st = buffer.get();
+        waiting = (byte) buffer.get();
+        random.setSeed(buffer.getLong());
+        if (translation != null)
+            translation.validate();
+    }
+
+    /**
+     * The base of the classes generated by translating a ROM ahead of time. A translation holds the ROM it was
+     * generated from and a method for every block of it, straight-line code with the opcodes decoded into constants
+     * which ends at the same instructions as the blocks of the {@link Engine#BLOCK} engine. Blocks are only entered
+     * while their bytes in memory match the ROM: writes to a block disable it, and the processor falls back to the
+     * block engine for it and for addresses the translation never reached, such as the targets of BNNN.
+     * <p>
+     * Every generated block executes its instructions exactly as {@link #decode} does, ending every one with the cycle
+     * update, so translated and interpreted runs are indistinguishable. A translation is bound to one processor.
+     */
+    public abstract static class Translation {
+
+        /**
+         * The ROM the translation was generated from, one character per byte.
+         */
+        private final String rom;
+
+        /**
+         * The start and end address of every block, the end exclusive, block n at index n * 2 - 2.
+         */
+        private final int[] bounds;
+
+        /**
+         * The block starting at every address, or zero if no matching block starts there.
+         */
+        private final int[] entries = new int[Memory.SIZE];
+
+        /**
+         * Whether or not every address is covered by a block.
+         */
+        private final boolean[] code = new boolean[Memory.SIZE];
+
+        /**
+         * The processor, or null if the translation isn't set on one.
+         */
+        private Processor processor;
+
+        /**
+         * The registers of the processor.
+         */
+        protected int[] v;
+
+        /**
+         * The program counter while executing blocks.
+         */
+        protected int pc;
+
+        /**
+         * The number of cycles left while executing blocks.
+         */
+        protected int n;
+
+        /**
+         * Constructs a new translation of the specified ROM with the specified blocks.
+         *
+         * @param rom    The ROM, one character per byte.
+         * @param bounds The start and end address of every block, the end exclusive, block n at index n * 2 - 2.
+         */
+        protected Translation(final String rom, final int[] bounds) {
+            this.rom = rom;
+            this.bounds = bounds;
+            for (int b = 0; b < bounds.length; b += 2) {
+                for (int address = bounds[b]; address < bounds[b + 1]; address++)
+                    code[address] = true;
+            }
+        }
+
+        /**
+         * Executes blocks from the program counter of the processor for at most the specified number of cycles,
+         * until the program counter leaves the matching blocks, the processor waits for a key or it jumps into an idle
+         * loop.
+         *
+         * @param cycles The number of cycles.
+         * @return The number of cycles executed.
+         */
+        final int execute(final int cycles) {
+            final Processor processor = this.processor;
+            pc = processor.pc;
+            n = cycles;
+            int block;
+            while (n > 0 && processor.waiting == -1 && !processor.looped && (block = entries[pc]) != 0)
+                run(block);
+            processor.pc = pc;
+            return cycles - n;
+        }
+
+        /**
+         * Enables every block whose bytes in memory match the ROM and disables the others.
+         */
+        final void validate() {
+            v = processor.register;
+            final byte[] memory = processor.memory.array();
+            for (int b = 0; b < bounds.length; b += 2)
+                entries[bounds[b]] = matches(memory, bounds[b], bounds[b + 1]) ? b / 2 + 1 : 0;
+        }
+
+        /**
+         * Disables every block covering any of the specified addresses.
+         *
+         * @param from The first address written, inclusive.
+         * @param to   The last address written, exclusive.
+         */
+        final void invalidate(final int from, final int to) {
+            for (int address = from; address < to; address++) {
+                final int written = address & Memory.MASK;
+                if (!code[written])
+                    continue;
+                for (int b = 0; b < bounds.length; b += 2) {
+                    if (written >= bounds[b] && written < bounds[b + 1])
+                        entries[bounds[b]] = 0;
+                }
+            }
+        }
+
+        /**
+         * Returns whether or not the specified range of memory matches the ROM.
+         *
+         * @param memory The memory.
+         * @param from   The first address, inclusive.
+         * @param to     The last address, exclusive.
+         * @return Whether or not the range matches.
+         */
+        private boolean matches(final byte[] memory, final int from, final int to) {
+            for (int address = from; address < to; address++) {
+                if ((memory[address] & 0xFF) != rom.charAt(address - ROM_START))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Executes the specified block.
+         *
+         * @param block The block.
+         */
+        protected abstract void run(int block);
+
+        /**
+         * Ends the cycle of an instruction.
+         */
+        protected final void update() {
+            processor.update();
+        }
+
+        /**
+         * Executes the specified opcode as {@link #decode} does, for instructions which aren't generated inline.
+         *
+         * @param instruction The instruction of the opcode.
+         * @param opcode      The opcode.
+         */
+        protected final void op(final int instruction, final int opcode) {
+            processor.decode(instruction, opcode);
+        }
+
+        /**
+         * Counts an execution of the specified instruction generated inline.
+         *
+         * @param instruction The instruction.
+         */
+        protected final void count(final int instruction) {
+            if (Metrics.ENABLED)
+                processor.metrics.instruction(instruction);
+        }
+
+        /**
+         * Marks a jump closing a possible idle loop, as {@link #decode} does for opcode 1NNN.
+         */
+        protected final void loop() {
+            if (processor.fastForward)
+                processor.looped = true;
+        }
+
+        /**
+         * Pushes the specified return address, as opcode 2NNN does.
+         *
+         * @param address The return address.
+         */
+        protected final void call(final int address) {
+            processor.pc = address;
+            processor.stack[++processor.sp] = address;
+        }
+
+        /**
+         * Pops a return address, as opcode 00EE does.
+         *
+         * @param address The address after the 00EE.
+         * @return The return address.
+         */
+        protected final int ret(final int address) {
+            processor.pc = address;
+            return processor.stack[processor.sp--];
+        }
+
+        /**
+         * Gets I.
+         *
+         * @return I.
+         */
+        protected final int index() {
+            return processor.i;
+        }
+
+        /**
+         * Sets I.
+         *
+         * @param i I.
+         */
+        protected final void index(final int i) {
+            processor.i = i;
+        }
+
+        /**
+         * Gets the delay timer.
+         *
+         * @return The delay timer.
+         */
+        protected final int delay() {
+            return processor.dt;
+        }
+
+        /**
+         * Sets the delay timer.
+         *
+         * @param dt The delay timer.
+         */
+        protected final void delay(final int dt) {
+            processor.dt = dt;
+        }
+
+        /**
+         * Sets the sound timer.
+         *
+         * @param st The sound timer.
+         */
+        protected final void sound(final int st) {
+            processor.st = st;
+        }
+
+        /**
+         * Returns whether or not the specified key is pressed.
+         *
+         * @param key The key.
+         * @return Whether or not the key is pressed.
+         */
+        protected final boolean pressed(final int key) {
+            return processor.keyboard.isKeyPressed(key);
         }
     }
 }
@@ -0,0 +1,327 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A bounded history of the states of a machine for stepping backwards through its execution. A snapshot is recorded
+ * every fixed number of cycles into a ring, most of them as the run-length encoded XOR of the state against the last
+ * full keyframe, since memory and pixels barely change between snapshots. When the history outgrows its capacity the
+ * oldest keyframe is evicted together with its deltas. Rewinding restores the closest snapshot before the target cycle
+ * and executes forward to it.
+ */
+public final class Rewind {
+
+    /**
+     * The maximum number of deltas recorded after a keyframe.
+     */
+    private static final int KEYFRAME_INTERVAL = 0x40;
+
+    /**
+     * The machine.
+     */
+    private final Machine machine;
+
+    /**
+     * The number of cycles between snapshots.
+     */
+    private final int interval;
+
+    /**
+     * The maximum number of bytes of recorded snapshots.
+     */
+    private final int capacity;
+
+    /**
+     * The save state captured and restored through.
+     */
+    private final SaveState state;
+
+    /**
+     * The bytes of the keyframe the next delta is encoded against.
+     */
+    private final byte[] keyframe = new byte[SaveState.SIZE];
+
+    /**
+     * The scratch buffer deltas are encoded into, large enough for the worst case.
+     */
+    private final byte[] scratch = new byte[StateBuffer.getMaxDeltaLength(SaveState.SIZE)];
+
+    /**
+     * The cycles of the recorded snapshots, in ring order.
+     */
+    private long[] cycles = new long[0x40];
+
+    /**
+     * The recorded snapshots, in ring order.
+     */
+    private byte[][] snapshots = new byte[0x40][];
+
+    /**
+     * Whether or not every recorded snapshot is a keyframe, in ring order.
+     */
+    private boolean[] keyframes = new boolean[0x40];
+
+    /**
+     * The index of the oldest snapshot in the ring.
+     */
+    private int head;
+
+    /**
+     * The number of recorded snapshots.
+     */
+    private int count;
+
+    /**
+     * The number of bytes of the recorded snapshots.
+     */
+    private int used;
+
+    /**
+     * The number of deltas recorded since the last keyframe.
+     */
+    private int deltas;
+
+    /**
+     * The number of bytes of the last keyframe and the deltas recorded since it.
+     */
+    private int group;
+
+    /**
+     * The number of cycles executed.
+     */
+    private long cycle;
+
+    /**
+     * Constructs a new history of the specified machine, recording a snapshot every specified number of cycles into at
+     * most the specified number of bytes. The current state of the machine is recorded as cycle zero.
+     *
+     * @param machine  The machine.
+     * @param interval The number of cycles between snapshots.
+     * @param capacity The maximum number of bytes of recorded snapshots.
+     */
+    public Rewind(final Machine machine, final int interval, final int capacity) {
+        if (interval <= 0 || capacity < SaveState.SIZE)
+            throw new IllegalArgumentException("interval must be positive and capacity at least " + SaveState.SIZE
+                    + " bytes: " + interval + ", " + capacity);
+        this.machine = machine;
+        this.interval = interval;
+        this.capacity = capacity;
+        this.state = SaveState.capture(machine);
+        reset();
+    }
+
+    /**
+     * Discards the history and records the current state of the machine as cycle zero, after the machine is loaded.
+     */
+    public void reset() {
+        for (int n = 0; n < count; n++)
+            snapshots[index(n)] = null;
+        head = count = used = 0;
+        cycle = 0;
+        record();
+    }
+
+    /**
+     * Executes the specified number of cycles on the machine, recording a snapshot at every multiple of the interval.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void run(final int cycles) {
+        int remaining = cycles;
+        while (remaining > 0) {
+            final int step = (int) Math.min(remaining, interval - cycle % interval);
+            machine.run(step);
+            cycle += step;
+            remaining -= step;
+            if (cycle % interval == 0)
+                record();
+        }
+    }
+
+    /**
+     * Restores the machine to the specified cycle, discarding the history after it.
+     *
+     * @param target The cycle.
+     * @return Whether or not the cycle is within the history.
+     */
+    public boolean rewind(final long target) {
+        if (target < getOldestCycle() || target > cycle)
+            return false;
+        int n = count - 1;
+        while (cycles[index(n)] > target)
+            n--;
+        restore(n);
+        for (int discarded = count - 1; discarded > n; discarded--) {
+            used -= snapshots[index(discarded)].length;
+            snapshots[index(discarded)] = null;
+        }
+        count = n + 1;
+        deltas = 0;
+        group = 0;
+        int k = n;
+        for (; !keyframes[index(k)]; k--) {
+            deltas++;
+            group += snapshots[index(k)].length;
+        }
+        group += snapshots[index(k)].length;
+        cycle = cycles[index(n)];
+        if (target > cycle) {
+            machine.run((int) (target - cycle));
+            cycle = target;
+        }
+        return true;
+    }
+
+    /**
+     * Restores the machine to the specified number of cycles before the current cycle, or as far back as the history
+     * reaches.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void stepBack(final long cycles) {
+        rewind(Math.max(getOldestCycle(), cycle - cycles));
+    }
+
+    /**
+     * Records a snapshot of the current state at the current cycle.
+     */
+    private void record() {
+        state.copyFrom(machine);
+        final byte[] current = state.array();
+        byte[] snapshot = null;
+        if (count > 0 && deltas < KEYFRAME_INTERVAL) {
+            final StateBuffer delta = new StateBuffer(scratch);
+            delta.putDelta(keyframe, current);
+            final int length = delta.position();
+            // a group outgrowing the capacity on its own couldn't be evicted, so it's closed by a keyframe instead
+            if (length < current.length / 2 && group + length <= capacity) {
+                snapshot = new byte[length];
+                System.arraycopy(scratch, 0, snapshot, 0, length);
+            }
+        }
+        final boolean key = snapshot == null;
+        if (key) {
+            snapshot = new byte[current.length];
+            System.arraycopy(current, 0, snapshot, 0, current.length);
+            System.arraycopy(current, 0, keyframe, 0, current.length);
+            deltas = 0;
+            group = 0;
+        } else {
+            deltas++;
+        }
+        group += snapshot.length;
+        add(cycle, snapshot, key);
+        evict();
+    }
+
+    /**
+     * Appends the specified snapshot to the ring, growing it if it's full.
+     *
+     * @param at       The cycle of the snapshot.
+     * @param snapshot The snapshot.
+     * @param key      Whether or not the snapshot is a keyframe.
+     */
+    private void add(final long at, final byte[] snapshot, final boolean key) {
+        if (count == snapshots.length) {
+            final long[] cycles = new long[count * 2];
+            final byte[][] snapshots = new byte[count * 2][];
+            final boolean[] keyframes = new boolean[count * 2];
+            for (int n = 0; n < count; n++) {
+                cycles[n] = this.cycles[index(n)];
+                snapshots[n] = this.snapshots[index(n)];
+                keyframes[n] = this.keyframes[index(n)];
+            }
+            this.cycles = cycles;
+            this.snapshots = snapshots;
+            this.keyframes = keyframes;
+            head = 0;
+        }
+        final int index = index(count++);
+        cycles[index] = at;
+        snapshots[index] = snapshot;
+        keyframes[index] = key;
+        used += snapshot.length;
+    }
+
+    /**
+     * Evicts the oldest keyframes together with their deltas while the history exceeds its capacity, always keeping the
+     * newest keyframe.
+     */
+    private void evict() {
+        while (used > capacity) {
+            int next = 1;
+            while (next < count && !keyframes[index(next)])
+                next++;
+            if (next == count)
+                return;
+            for (int n = 0; n < next; n++) {
+                used -= snapshots[index(n)].length;
+                snapshots[index(n)] = null;
+            }
+            head = index(next);
+            count -= next;
+        }
+    }
+
+    /**
+     * Restores the machine to the snapshot at the specified position of the ring, and makes its keyframe the base of
+     * the next delta.
+     *
+     * @param n The position, zero being the oldest.
+     */
+    private void restore(final int n) {
+        int key = n;
+        while (!keyframes[index(key)])
+            key--;
+        final byte[] bytes = state.array();
+        System.arraycopy(snapshots[index(key)], 0, keyframe, 0, keyframe.length);
+        System.arraycopy(keyframe, 0, bytes, 0, bytes.length);
+        if (key != n)
+            new StateBuffer(snapshots[index(n)]).getDelta(bytes, snapshots[index(n)].length);
+        state.restore(machine);
+    }
+
+    /**
+     * Gets the index in the ring of the specified position.
+     *
+     * @param n The position, zero being the oldest.
+     * @return The index.
+     */
+    private int index(final int n) {
+        return (head + n) & (snapshots.length - 1);
+    }
+
+    /**
+     * Gets the current cycle, the number of cycles executed since the history was reset.
+     *
+     * @return The cycle.
+     */
+    public long getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Gets the oldest cycle the machine can be rewound to.
+     *
+     * @return The cycle.
+     */
+    public long getOldestCycle() {
+        return cycles[head];
+    }
+
+    /**
+     * Gets the number of recorded snapshots.
+     *
+     * @return The number of snapshots.
+     */
+    public int getSnapshots() {
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes of the recorded snapshots.
+     *
+     * @return The number of bytes.
+     */
+    public int getUsed() {
+        return used;
+    }
+}
@@ -0,0 +1,18 @@
+package me.rabrg.chip8.hardware;
+
+import java.io.IOException;
+
+/**
+ * Supplies the bytes of ROMs by name.
+ */
+public interface RomSource {
+
+    /**
+     * Reads the ROM with the specified name.
+     *
+     * @param name The name.
+     * @return The ROM bytes.
+     * @throws IOException If the ROM couldn't be read.
+     */
+    byte[] read(String name) throws IOException;
+}
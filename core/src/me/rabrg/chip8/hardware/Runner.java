@@ -0,0 +1,52 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * Schedules the execution of a machine and hands its frames to the renderer.
+ */
+public interface Runner {
+
+    /**
+     * The default number of instructions per second.
+     */
+    int DEFAULT_SPEED = 1000 / Processor.CYCLE_RATE;
+
+    /**
+     * The number of timer updates per second.
+     */
+    int TIMER_RATE = 60;
+
+    /**
+     * Gets the number of instructions executed per 60 Hz timeslice, which the timer of the machine has to match.
+     *
+     * @return The number of instructions.
+     */
+    int getCyclesPerFrame();
+
+    /**
+     * Starts executing the specified machine.
+     *
+     * @param machine The machine.
+     */
+    void start(Machine machine);
+
+    /**
+     * Gets the latest frame of the machine. Called from the render thread.
+     *
+     * @return The frame.
+     */
+    Frame getFrame();
+
+    /**
+     * Sets the listener called whenever a frame has to be rendered, so the frontend can render on demand rather than
+     * continuously. Runners executing the machine on their own thread call it from that thread when a new frame is
+     * published; runners executing it from {@link #getFrame()} call it from every frame while running.
+     *
+     * @param listener The listener, or null to remove it.
+     */
+    void setFrameListener(Runnable listener);
+
+    /**
+     * Stops executing the machine.
+     */
+    void stop();
+}
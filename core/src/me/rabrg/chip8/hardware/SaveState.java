@@ -0,0 +1,122 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A snapshot of the complete state of a machine in a compact, versioned binary format: the processor with its 4 KB of
+ * memory and random number state, the framebuffer, the keypad and the timer phase. Key events still queued by the input
+ * thread and the engine setting aren't part of the state.
+ */
+public final class SaveState {
+
+    /**
+     * The bytes every save state starts with.
+     */
+    private static final int MAGIC = 0x43385353;
+
+    /**
+     * The version of the format written.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The number of bytes of a save state.
+     */
+    public static final int SIZE = 4 + 1 + Processor.STATE_SIZE + Display.STATE_SIZE + Keyboard.STATE_SIZE + 2;
+
+    /**
+     * The bytes of the save state.
+     */
+    private final byte[] data;
+
+    /**
+     * Constructs a new save state of the specified bytes.
+     *
+     * @param data The bytes.
+     */
+    private SaveState(final byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Captures the state of the specified machine.
+     *
+     * @param machine The machine.
+     * @return The save state.
+     */
+    public static SaveState capture(final Machine machine) {
+        final SaveState state = new SaveState(new byte[SIZE]);
+        state.copyFrom(machine);
+        return state;
+    }
+
+    /**
+     * Wraps the specified bytes, previously returned by {@link #toByteArray()}, as a save state.
+     *
+     * @param data The bytes.
+     * @return The save state.
+     * @throws IllegalArgumentException If the bytes aren't a valid save state of a supported version.
+     */
+    public static SaveState of(final byte[] data) {
+        if (data.length != SIZE)
+            throw new IllegalArgumentException("Save state must be " + SIZE + " bytes: " + data.length);
+        final StateBuffer buffer = new StateBuffer(data);
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a save state");
+        final int version = buffer.get();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported save state version: " + version);
+        Processor.check(buffer);
+        final byte[] copy = new byte[SIZE];
+        System.arraycopy(data, 0, copy, 0, SIZE);
+        return new SaveState(copy);
+    }
+
+    /**
+     * Overwrites this save state with the state of the specified machine, reusing its bytes.
+     *
+     * @param machine The machine.
+     */
+    public void copyFrom(final Machine machine) {
+        final StateBuffer buffer = new StateBuffer(data);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        machine.getProcessor().save(buffer);
+        machine.getDisplay().save(buffer);
+        machine.getKeyboard().save(buffer);
+        buffer.putShort(machine.getTimer().getPhase());
+    }
+
+    /**
+     * Restores the specified machine to this save state.
+     *
+     * @param machine The machine.
+     */
+    public void restore(final Machine machine) {
+        final StateBuffer buffer = new StateBuffer(data);
+        buffer.getInt();
+        buffer.get();
+        machine.getProcessor().load(buffer);
+        machine.getDisplay().load(buffer);
+        machine.getKeyboard().load(buffer);
+        machine.getTimer().setPhase(buffer.getShort());
+    }
+
+    /**
+     * Gets the bytes of the save state without copying them.
+     *
+     * @return The bytes.
+     */
+    byte[] array() {
+        return data;
+    }
+
+    /**
+     * Gets a copy of the bytes of the save state.
+     *
+     * @return The bytes.
+     */
+    public byte[] toByteArray() {
+        final byte[] copy = new byte[SIZE];
+        System.arraycopy(data, 0, copy, 0, SIZE);
+        return copy;
+    }
+}
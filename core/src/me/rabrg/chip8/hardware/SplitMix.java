@@ -0,0 +1,68 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * The SplitMix64 pseudorandom generator for opcode CXNN. Every machine owns one, so random numbers are reproducible
+ * from a seed and no lock is shared between machines. Its whole state is a single long, saved with the machine.
+ */
+public final class SplitMix {
+
+    /**
+     * The increment of the state, the odd integer closest to 2^64 divided by the golden ratio.
+     */
+    static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The state.
+     */
+    private long state;
+
+    /**
+     * Constructs a new generator with the specified seed.
+     *
+     * @param seed The seed.
+     */
+    public SplitMix(final long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Gets the next random byte.
+     *
+     * @return The byte, from 0 to 255.
+     */
+    public int nextByte() {
+        state += GAMMA;
+        return (int) (mix(state) >>> 56);
+    }
+
+    /**
+     * Sets the seed, restarting the sequence.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(final long seed) {
+        state = seed;
+    }
+
+    /**
+     * Gets the state, which is the seed until the first number is generated.
+     *
+     * @return The state.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Scrambles the specified state into a random value.
+     *
+     * @param state The state.
+     * @return The value.
+     */
+    static long mix(final long state) {
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,237 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * A cursor over the bytes of a save state, movie, delta or recording, writing and reading big-endian values, varints
+ * and deltas. A delta is the XOR of some bytes against an earlier version of them, encoded as alternating varint
+ * lengths of unchanged and changed runs with the XOR of every changed run, so bytes which barely change encode to a
+ * few bytes.
+ */
+public final class StateBuffer {
+
+    /**
+     * The bytes.
+     */
+    private final byte[] data;
+
+    /**
+     * The position of the next byte.
+     */
+    private int position;
+
+    /**
+     * Constructs a new buffer over the specified bytes.
+     *
+     * @param data The bytes.
+     */
+    public StateBuffer(final byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Writes the specified byte.
+     *
+     * @param value The byte.
+     */
+    public void put(final int value) {
+        data[position++] = (byte) value;
+    }
+
+    /**
+     * Writes the specified short.
+     *
+     * @param value The short.
+     */
+    public void putShort(final int value) {
+        put(value >>> 8);
+        put(value);
+    }
+
+    /**
+     * Writes the specified int.
+     *
+     * @param value The int.
+     */
+    public void putInt(final int value) {
+        putShort(value >>> 16);
+        putShort(value);
+    }
+
+    /**
+     * Writes the specified long.
+     *
+     * @param value The long.
+     */
+    public void putLong(final long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    /**
+     * Writes the specified bytes.
+     *
+     * @param values The bytes.
+     */
+    public void put(final byte[] values) {
+        System.arraycopy(values, 0, data, position, values.length);
+        position += values.length;
+    }
+
+    /**
+     * Writes the specified non-negative int as a little-endian base 128 varint of one to five bytes.
+     *
+     * @param value The int.
+     */
+    public void putVarint(final int value) {
+        int v = value;
+        while (v >= 0x80) {
+            put(v | 0x80);
+            v >>>= 7;
+        }
+        put(v);
+    }
+
+    /**
+     * Reads an unsigned byte.
+     *
+     * @return The byte.
+     */
+    public int get() {
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned short.
+     *
+     * @return The short.
+     */
+    public int getShort() {
+        return get() << 8 | get();
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return The int.
+     */
+    public int getInt() {
+        return getShort() << 16 | getShort();
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return The long.
+     */
+    public long getLong() {
+        return (long) getInt() << 32 | getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Writes the delta of the specified bytes against the specified base.
+     *
+     * @param base    The base.
+     * @param current The bytes, as long as the base.
+     */
+    public void putDelta(final byte[] base, final byte[] current) {
+        int address = 0;
+        while (address < current.length) {
+            final int unchanged = address;
+            while (address < current.length && base[address] == current[address])
+                address++;
+            if (address == current.length)
+                break;
+            final int changed = address;
+            while (address < current.length && base[address] != current[address])
+                address++;
+            putVarint(changed - unchanged);
+            putVarint(address - changed);
+            for (int a = changed; a < address; a++)
+                put(base[a] ^ current[a]);
+        }
+    }
+
+    /**
+     * Reads a varint.
+     *
+     * @return The int.
+     * @throws IllegalArgumentException If the varint is longer than five bytes.
+     */
+    public int getVarint() {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            final int b = get();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new IllegalArgumentException("Varint longer than five bytes at " + position);
+    }
+
+    /**
+     * Reads a delta up to the specified position and applies it to the specified bytes in place.
+     *
+     * @param state The bytes.
+     * @param end   The position after the delta.
+     * @throws IllegalArgumentException If the delta is corrupt.
+     */
+    public void getDelta(final byte[] state, final int end) {
+        int address = 0;
+        while (position < end) {
+            address += getVarint();
+            final int run = getVarint();
+            if (address + run > state.length || position + run > end)
+                throw new IllegalArgumentException("Delta run past the end at " + position);
+            for (final int stop = address + run; address < stop; address++)
+                state[address] ^= get();
+        }
+        if (position != end)
+            throw new IllegalArgumentException("Delta past its end at " + position);
+    }
+
+    /**
+     * Reads bytes filling the specified array.
+     *
+     * @param values The array.
+     */
+    public void get(final byte[] values) {
+        System.arraycopy(data, position, values, 0, values.length);
+        position += values.length;
+    }
+
+    /**
+     * Skips the specified number of bytes.
+     *
+     * @param count The number of bytes.
+     */
+    void skip(final int count) {
+        position += count;
+    }
+
+    /**
+     * Gets the maximum number of bytes of the delta of the specified number of bytes.
+     *
+     * @param length The number of bytes.
+     * @return The maximum number of bytes of the delta.
+     */
+    public static int getMaxDeltaLength(final int length) {
+        return length * 2 + 8;
+    }
+
+    /**
+     * Gets the bytes without copying them.
+     *
+     * @return The bytes.
+     */
+    byte[] array() {
+        return data;
+    }
+
+    /**
+     * Gets the position of the next byte.
+     *
+     * @return The position.
+     */
+    public int position() {
+        return position;
+    }
+}
@@ -0,0 +1,36 @@
+package me.rabrg.chip8.hardware;
+
+/**
+ * Decides when the 60 Hz delay and sound timer updates happen.
+ */
+public interface Timer {
+
+    /**
+     * Advances the timer by one processor cycle.
+     *
+     * @return Whether or not a 60 Hz update is due.
+     */
+    boolean tick();
+
+    /**
+     * Gets the number of cycles between updates, or zero if updates aren't counted in cycles, which rules out
+     * fast-forwarding idle loops.
+     *
+     * @return The number of cycles.
+     */
+    int getPeriod();
+
+    /**
+     * Gets the phase of the timer, the cycles elapsed since the last update, for save states.
+     *
+     * @return The phase.
+     */
+    int getPhase();
+
+    /**
+     * Sets the phase of the timer, restoring a save state.
+     *
+     * @param phase The phase.
+     */
+    void setPhase(int phase);
+}
@@ -0,0 +1,285 @@
+package me.rabrg.chip8.hardware;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A memo of machine steps for callers stepping the same states over and over, such as search agents and replay
+ * validators. A step sets the keypad and executes a number of cycles; its result is fully determined by the save state
+ * before it, which includes the random number state for CXNN, the keypad state and the cycle count. Steps are keyed by
+ * a hash of the three and remembered as the run-length encoded XOR of the state after against the state before, so a
+ * repeated step restores its result instead of executing. The state before is kept too, to rule out hash collisions.
+ * The least recently used steps are evicted once the memo outgrows its capacity in bytes.
+ * <p>
+ * Hashing and restoring a state costs a couple of microseconds, so only steps of a few hundred cycles or more are worth
+ * memoizing. Key events queued by an input thread must not be pending, since they aren't part of the state.
+ */
+public final class TransitionCache {
+
+    /**
+     * The number of bytes every entry costs besides its encoded states.
+     */
+    private static final int ENTRY_OVERHEAD = 0x40;
+
+    /**
+     * The maximum number of bytes of the remembered steps.
+     */
+    private final int capacity;
+
+    /**
+     * The remembered steps by hash, least recently used first.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(0x100, 0.75f, true);
+
+    /**
+     * The save state captured and restored through, or null until the first step.
+     */
+    private SaveState state;
+
+    /**
+     * The bytes of the state before the current step, or null if they're shared with the last remembered step.
+     */
+    private byte[] before;
+
+    /**
+     * The scratch buffer states are decoded and encoded through, large enough for the worst case.
+     */
+    private final byte[] scratch = new byte[StateBuffer.getMaxDeltaLength(SaveState.SIZE)];
+
+    /**
+     * The number of bytes of the remembered steps.
+     */
+    private int used;
+
+    /**
+     * The number of steps restored from the memo.
+     */
+    private long hits;
+
+    /**
+     * The number of steps executed.
+     */
+    private long misses;
+
+    /**
+     * Constructs a new memo of at most the specified number of bytes.
+     *
+     * @param capacity The maximum number of bytes of the remembered steps.
+     */
+    public TransitionCache(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the keypad of the specified machine to the specified state and executes the specified number of cycles,
+     * or restores the result of the same step from the memo.
+     *
+     * @param machine The machine.
+     * @param keys    The keypad state, bit n set if key n is down.
+     * @param cycles  The number of cycles.
+     */
+    public void step(final Machine machine, final int keys, final int cycles) {
+        if (state == null)
+            state = SaveState.capture(machine);
+        else
+            state.copyFrom(machine);
+        final byte[] bytes = state.array();
+        if (before == null)
+            before = new byte[SaveState.SIZE];
+        System.arraycopy(bytes, 0, before, 0, bytes.length);
+        final Long key = hash(before, keys & 0xFFFF, cycles);
+
+        final Entry entry = entries.get(key);
+        if (entry != null && entry.keys == (keys & 0xFFFF) && entry.cycles == cycles
+                && Arrays.equals(entry.before, before)) {
+            hits++;
+            new StateBuffer(entry.after).getDelta(bytes, entry.after.length);
+            state.restore(machine);
+            return;
+        }
+
+        misses++;
+        machine.getKeyboard().setKeys(keys);
+        machine.run(cycles);
+        state.copyFrom(machine);
+        final Entry added = new Entry(keys & 0xFFFF, cycles, before, encode(before, bytes));
+        before = null;
+        final Entry replaced = entries.put(key, added);
+        used += added.size() - (replaced == null ? 0 : replaced.size());
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (used > capacity && iterator.hasNext()) {
+            used -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Executes a 60 Hz frame with the specified keypad state on the specified machine, or restores its result from
+     * the memo.
+     *
+     * @param machine The machine.
+     * @param keys    The keypad state, bit n set if key n is down.
+     */
+    public void step(final Machine machine, final int keys) {
+        final int period = machine.getTimer().getPeriod();
+        if (period == 0)
+            throw new IllegalArgumentException("The timer of the machine isn't counted in cycles");
+        step(machine, keys, period);
+    }
+
+    /**
+     * Encodes the specified state against the specified base.
+     *
+     * @param base    The base.
+     * @param current The state.
+     * @return The encoded state.
+     */
+    private byte[] encode(final byte[] base, final byte[] current) {
+        final StateBuffer buffer = new StateBuffer(scratch);
+        buffer.putDelta(base, current);
+        final byte[] encoded = new byte[buffer.position()];
+        System.arraycopy(scratch, 0, encoded, 0, encoded.length);
+        return encoded;
+    }
+
+    /**
+     * Hashes the specified state with the specified keypad state and number of cycles.
+     *
+     * @param state  The state.
+     * @param keys   The keypad state.
+     * @param cycles The number of cycles.
+     * @return The hash.
+     */
+    private static Long hash(final byte[] state, final int keys, final int cycles) {
+        long first = keys, second = cycles, third = SplitMix.GAMMA, fourth = state.length;
+        int index = 0;
+        for (; index + 16 <= state.length; index += 16) {
+            first = (first + word(state, index)) * SplitMix.GAMMA;
+            second = (second + word(state, index + 4)) * SplitMix.GAMMA;
+            third = (third + word(state, index + 8)) * SplitMix.GAMMA;
+            fourth = (fourth + word(state, index + 12)) * SplitMix.GAMMA;
+        }
+        for (; index < state.length; index++)
+            first = (first + state[index]) * SplitMix.GAMMA;
+        return SplitMix.mix(first ^ Long.reverse(second) ^ SplitMix.mix(third) ^ SplitMix.mix(fourth) >>> 1);
+    }
+
+    /**
+     * Reads four bytes of the specified state as an integer.
+     *
+     * @param state The state.
+     * @param index The index of the first byte.
+     * @return The integer.
+     */
+    private static int word(final byte[] state, final int index) {
+        return state[index] << 24 | (state[index + 1] & 0xFF) << 16 | (state[index + 2] & 0xFF) << 8
+                | state[index + 3] & 0xFF;
+    }
+
+    /**
+     * Forgets every remembered step, keeping the hit and miss counts.
+     */
+    public void clear() {
+        entries.clear();
+        used = 0;
+    }
+
+    /**
+     * Gets the number of steps restored from the memo.
+     *
+     * @return The number of steps.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of steps executed because they weren't remembered.
+     *
+     * @return The number of steps.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the fraction of steps restored from the memo.
+     *
+     * @return The fraction, or zero if no step has been taken.
+     */
+    public double getHitRate() {
+        final long steps = hits + misses;
+        return steps == 0 ? 0 : (double) hits / steps;
+    }
+
+    /**
+     * Gets the number of remembered steps.
+     *
+     * @return The number of steps.
+     */
+    public int getEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of bytes of the remembered steps.
+     *
+     * @return The number of bytes.
+     */
+    public int getUsed() {
+        return used;
+    }
+
+    /**
+     * A remembered step.
+     */
+    private static final class Entry {
+
+        /**
+         * The keypad state set by the step.
+         */
+        private final int keys;
+
+        /**
+         * The number of cycles executed by the step.
+         */
+        private final int cycles;
+
+        /**
+         * The state before the step.
+         */
+        private final byte[] before;
+
+        /**
+         * The state after the step, encoded against the state before.
+         */
+        private final byte[] after;
+
+        /**
+         * Constructs a new remembered step.
+         *
+         * @param keys   The keypad state set by the step.
+         * @param cycles The number of cycles executed by the step.
+         * @param before The state before the step.
+         * @param after  The state after the step, encoded against the state before.
+         */
+        private Entry(final int keys, final int cycles, final byte[] before, final byte[] after) {
+            this.keys = keys;
+            this.cycles = cycles;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * Gets the number of bytes the step costs.
+         *
+         * @return The number of bytes.
+         */
+        private int size() {
+            return ENTRY_OVERHEAD + before.length + after.length;
+        }
+    }
+}
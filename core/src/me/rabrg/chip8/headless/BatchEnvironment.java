@@ -0,0 +1,219 @@
+package me.rabrg.chip8.headless;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import me.rabrg.chip8.hardware.BatchMachine;
+import me.rabrg.chip8.hardware.Display;
+
+/**
+ * A gym-style interface to a batch of machines for training loops: {@link #reset} and {@link #step} take the actions
+ * of every instance and write the observations of every instance into one buffer supplied by the caller, typically a
+ * direct buffer shared with native code, without allocating. An observation is the framebuffer, as packed bits or one
+ * byte per pixel, followed by a chosen set of registers. A step holds the actions for a number of frames, and can
+ * max-pool the framebuffer over them, which for one bit pixels keeps every pixel lit in any of the frames and so hides
+ * the flicker of sprites erased and redrawn every frame.
+ */
+public final class BatchEnvironment {
+
+    /**
+     * The number of bytes of a framebuffer packed one bit per pixel.
+     */
+    public static final int PACKED_SIZE = Display.WIDTH * Display.HEIGHT / 8;
+
+    /**
+     * The number of bytes of a framebuffer of one byte per pixel.
+     */
+    public static final int UNPACKED_SIZE = Display.WIDTH * Display.HEIGHT;
+
+    /**
+     * The batch of machines.
+     */
+    private final BatchMachine batch;
+
+    /**
+     * Whether or not the framebuffer is packed one bit per pixel.
+     */
+    private final boolean packed;
+
+    /**
+     * The number of frames every step holds its actions for.
+     */
+    private final int frameSkip;
+
+    /**
+     * Whether or not the framebuffer is max-pooled over the frames of a step.
+     */
+    private final boolean maxPool;
+
+    /**
+     * The registers appended to every observation.
+     */
+    private final int[] registers;
+
+    /**
+     * The framebuffers max-pooled over the frames of the current step, every instance one after another.
+     */
+    private final long[] pooled;
+
+    /**
+     * Constructs a new environment of the specified batch, with the ROM already loaded.
+     *
+     * @param batch     The batch.
+     * @param packed    Whether or not the framebuffer is packed one bit per pixel, the leftmost pixel of every byte in
+     *                  its most significant bit, rather than one byte of 0 or 1 per pixel.
+     * @param frameSkip The number of frames every step holds its actions for.
+     * @param maxPool   Whether or not the framebuffer is max-pooled over the frames of a step rather than the last.
+     * @param registers The registers appended to every observation, one byte each.
+     */
+    public BatchEnvironment(final BatchMachine batch, final boolean packed, final int frameSkip, final boolean maxPool,
+                            final int... registers) {
+        if (frameSkip <= 0)
+            throw new IllegalArgumentException("frameSkip must be positive: " + frameSkip);
+        for (final int register : registers) {
+            if (register < 0 || register > 0xF)
+                throw new IllegalArgumentException("No such register: " + register);
+        }
+        this.batch = batch;
+        this.packed = packed;
+        this.frameSkip = frameSkip;
+        this.maxPool = maxPool;
+        this.registers = registers.clone();
+        this.pooled = maxPool ? new long[batch.size() * Display.HEIGHT] : null;
+    }
+
+    /**
+     * Constructs a new environment of the specified batch, with the ROM already loaded, observing the packed
+     * framebuffer of the last frame of every step of one frame.
+     *
+     * @param batch The batch.
+     */
+    public BatchEnvironment(final BatchMachine batch) {
+        this(batch, true, 1, false);
+    }
+
+    /**
+     * Resets every instance to the ROM loaded and writes their observations.
+     *
+     * @param observations The buffer, of at least {@link #getObservationsSize()} bytes from position zero.
+     */
+    public void reset(final ByteBuffer observations) {
+        check(observations);
+        for (int n = 0; n < batch.size(); n++) {
+            batch.reset(n);
+            write(observations, n, false);
+        }
+    }
+
+    /**
+     * Resets the specified instance to the ROM loaded, between steps, and writes its observation.
+     *
+     * @param n            The instance.
+     * @param observations The buffer, of at least {@link #getObservationsSize()} bytes from position zero.
+     */
+    public void reset(final int n, final ByteBuffer observations) {
+        check(observations);
+        batch.reset(n);
+        write(observations, n, false);
+    }
+
+    /**
+     * Holds the specified actions for the frames of a step and writes the observations of every instance.
+     *
+     * @param actions      The keypad state of every instance, bit n set if key n is down.
+     * @param observations The buffer, of at least {@link #getObservationsSize()} bytes from position zero.
+     */
+    public void step(final int[] actions, final ByteBuffer observations) {
+        if (actions.length < batch.size())
+            throw new IllegalArgumentException("Expected " + batch.size() + " actions: " + actions.length);
+        check(observations);
+        for (int n = 0; n < batch.size(); n++)
+            batch.setKeys(n, actions[n]);
+        if (maxPool) {
+            for (int index = 0; index < pooled.length; index++)
+                pooled[index] = 0;
+        }
+        for (int frame = 0; frame < frameSkip; frame++) {
+            batch.run(batch.getCyclesPerFrame());
+            if (maxPool)
+                pool();
+        }
+        for (int n = 0; n < batch.size(); n++)
+            write(observations, n, maxPool);
+    }
+
+    /**
+     * Max-pools the current framebuffer of every instance into the pooled framebuffers.
+     */
+    private void pool() {
+        for (int n = 0; n < batch.size(); n++) {
+            final Display display = batch.getDisplay(n);
+            final int base = n * Display.HEIGHT;
+            for (int y = 0; y < Display.HEIGHT; y++)
+                pooled[base + y] |= display.getRow(y);
+        }
+    }
+
+    /**
+     * Writes the observation of the specified instance.
+     *
+     * @param observations The buffer.
+     * @param n            The instance.
+     * @param max          Whether or not to write the pooled framebuffer rather than the current one.
+     */
+    private void write(final ByteBuffer observations, final int n, final boolean max) {
+        final Display display = batch.getDisplay(n);
+        final boolean big = observations.order() == ByteOrder.BIG_ENDIAN;
+        int index = n * getObservationSize();
+        for (int y = 0; y < Display.HEIGHT; y++) {
+            final long row = max ? pooled[n * Display.HEIGHT + y] : display.getRow(y);
+            if (packed) {
+                observations.putLong(index, big ? row : Long.reverseBytes(row));
+                index += 8;
+            } else {
+                for (int x = 0; x < Display.WIDTH; x++)
+                    observations.put(index++, (byte) (row >>> (Display.WIDTH - 1 - x) & 1));
+            }
+        }
+        for (final int register : registers)
+            observations.put(index++, (byte) batch.getRegister(n, register));
+    }
+
+    /**
+     * Checks the specified buffer is large enough for the observations of every instance.
+     *
+     * @param observations The buffer.
+     */
+    private void check(final ByteBuffer observations) {
+        if (observations.limit() < getObservationsSize())
+            throw new IllegalArgumentException("Observations need " + getObservationsSize() + " bytes: "
+                    + observations.limit());
+    }
+
+    /**
+     * Gets the number of bytes of the observation of one instance.
+     *
+     * @return The number of bytes.
+     */
+    public int getObservationSize() {
+        return (packed ? PACKED_SIZE : UNPACKED_SIZE) + registers.length;
+    }
+
+    /**
+     * Gets the number of bytes of the observations of every instance.
+     *
+     * @return The number of bytes.
+     */
+    public int getObservationsSize() {
+        return getObservationSize() * batch.size();
+    }
+
+    /**
+     * Gets the batch of machines.
+     *
+     * @return The batch.
+     */
+    public BatchMachine getBatch() {
+        return batch;
+    }
+}
@@ -0,0 +1,44 @@
+package me.rabrg.chip8.headless;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import me.rabrg.chip8.hardware.RomSource;
+
+/**
+ * Reads ROMs from a directory on the local file system.
+ */
+public final class FileRomSource implements RomSource {
+
+    /**
+     * The directory containing the ROMs.
+     */
+    private final File directory;
+
+    /**
+     * Constructs a new ROM source for the specified directory.
+     *
+     * @param directory The directory.
+     */
+    public FileRomSource(final File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public byte[] read(final String name) throws IOException {
+        final InputStream in = new FileInputStream(new File(directory, name));
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[0x1000];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package me.rabrg.chip8.headless;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.StateBuffer;
+
+/**
+ * Records the frames of a display without slowing the thread executing the machine. The CPU thread calls
+ * {@link #capture(Display)} once per 60 Hz frame, which copies the 32 rows into a preallocated ring and returns; a
+ * background thread encodes them into the {@link Recording} format. Captures never block: a frame with the same
+ * generation as the last one queued is coalesced into it, and a frame arriving while the ring is full is dropped, its
+ * time folded into the next frame queued, so the timing of the recording stays exact even when frames are lost.
+ */
+public final class FrameRecorder {
+
+    /**
+     * The default number of frames the ring holds.
+     */
+    private static final int DEFAULT_CAPACITY = 0x100;
+
+    /**
+     * How long the encoder parks while the ring is empty, in nanoseconds.
+     */
+    private static final long IDLE = 1000000L;
+
+    /**
+     * The stream the recording is written to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The number of frames the ring holds.
+     */
+    private final int capacity;
+
+    /**
+     * The rows of the queued frames, one frame after another.
+     */
+    private final long[] rows;
+
+    /**
+     * The number of frames since the previous queued frame of every queued frame.
+     */
+    private final int[] elapsed;
+
+    /**
+     * The number of frames queued, written only by the CPU thread.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of frames encoded, written only by the encoder.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The encoder thread.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether or not the recorder is accepting frames.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The generation of the display when the last frame was queued.
+     */
+    private int generation;
+
+    /**
+     * Whether or not a frame has been queued.
+     */
+    private boolean started;
+
+    /**
+     * The number of frames captured since the last queued frame.
+     */
+    private int pending;
+
+    /**
+     * The number of frames coalesced or dropped since the last queued frame when the recorder was closed.
+     */
+    private volatile int trailing;
+
+    /**
+     * The number of frames captured.
+     */
+    private volatile long captured;
+
+    /**
+     * The number of frames coalesced into the previous frame because the display was unchanged.
+     */
+    private volatile long coalesced;
+
+    /**
+     * The number of frames dropped because the ring was full.
+     */
+    private volatile long dropped;
+
+    /**
+     * The number of bytes written.
+     */
+    private volatile long written;
+
+    /**
+     * The time the encoder has spent encoding and writing, in nanoseconds.
+     */
+    private volatile long busy;
+
+    /**
+     * The exception which stopped the encoder, or null if it hasn't failed.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Constructs a new recorder writing to the specified stream, holding at most the specified number of frames
+     * waiting to be encoded.
+     *
+     * @param out      The stream.
+     * @param capacity The number of frames.
+     * @throws IOException If the header couldn't be written.
+     */
+    public FrameRecorder(final OutputStream out, final int capacity) throws IOException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.capacity = capacity;
+        rows = new long[capacity * Display.HEIGHT];
+        elapsed = new int[capacity];
+        Recording.writeHeader(this.out);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                encode();
+            }
+        }, "chip8-recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Constructs a new recorder writing to the specified stream, holding at most 256 frames waiting to be encoded.
+     *
+     * @param out The stream.
+     * @throws IOException If the header couldn't be written.
+     */
+    public FrameRecorder(final OutputStream out) throws IOException {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Captures the current frame of the specified display. Called from one thread only, once per 60 Hz frame, and
+     * never blocks.
+     *
+     * @param display The display.
+     */
+    public void capture(final Display display) {
+        if (!running)
+            return;
+        captured++;
+        pending++;
+        if (started && display.getGeneration() == generation) {
+            coalesced++;
+            return;
+        }
+        final long tail = this.tail.get();
+        if (tail - head.get() == capacity) {
+            dropped++;
+            return;
+        }
+        final int slot = (int) (tail % capacity);
+        final int base = slot * Display.HEIGHT;
+        for (int y = 0; y < Display.HEIGHT; y++)
+            rows[base + y] = display.getRow(y);
+        elapsed[slot] = pending;
+        pending = 0;
+        generation = display.getGeneration();
+        started = true;
+        this.tail.lazySet(tail + 1);
+    }
+
+    /**
+     * Encodes queued frames until the recorder is closed and the ring is drained.
+     */
+    private void encode() {
+        byte[] previous = new byte[Recording.FRAME_SIZE];
+        byte[] current = new byte[Recording.FRAME_SIZE];
+        final byte[] delta = new byte[Recording.MAX_DELTA_SIZE];
+        try {
+            while (true) {
+                final long head = this.head.get();
+                if (head == tail.get()) {
+                    if (!running && head == tail.get())
+                        break;
+                    if (running)
+                        LockSupport.parkNanos(this, IDLE);
+                    continue;
+                }
+                final long start = System.nanoTime();
+                final int slot = (int) (head % capacity);
+                final StateBuffer packed = new StateBuffer(current);
+                for (int y = 0; y < Display.HEIGHT; y++)
+                    packed.putLong(rows[slot * Display.HEIGHT + y]);
+                final int ticks = elapsed[slot];
+                this.head.lazySet(head + 1);
+                final StateBuffer encoded = new StateBuffer(delta);
+                encoded.putDelta(previous, current);
+                written += Recording.writeFrame(out, ticks, delta, encoded.position());
+                final byte[] swap = previous;
+                previous = current;
+                current = swap;
+                busy += System.nanoTime() - start;
+            }
+            written += Recording.writeEnd(out, trailing + 1);
+            out.flush();
+        } catch (final IOException e) {
+            failure = e;
+            running = false;
+        }
+    }
+
+    /**
+     * Stops accepting frames, waits for the queued frames to be encoded and closes the stream. Called once the thread
+     * capturing frames has stopped.
+     *
+     * @throws IOException If the recording couldn't be written.
+     */
+    public void close() throws IOException {
+        if (running) {
+            trailing = pending;
+            running = false;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Gets the number of frames captured.
+     *
+     * @return The number of frames.
+     */
+    public long getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Gets the number of frames coalesced into the previous frame because the display was unchanged.
+     *
+     * @return The number of frames.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of frames dropped because the encoder had fallen behind.
+     *
+     * @return The number of frames.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the number of frames encoded.
+     *
+     * @return The number of frames.
+     */
+    public long getEncoded() {
+        return head.get();
+    }
+
+    /**
+     * Gets the number of bytes written, excluding the header.
+     *
+     * @return The number of bytes.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Gets the throughput of the encoder, in frames encoded per second of its busy time.
+     *
+     * @return The number of frames per second, or zero if no frame has been encoded.
+     */
+    public double getThroughput() {
+        final long busy = this.busy;
+        return busy == 0 ? 0 : getEncoded() * 1e9 / busy;
+    }
+}
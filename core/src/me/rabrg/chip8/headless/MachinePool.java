@@ -0,0 +1,248 @@
+package me.rabrg.chip8.headless;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import me.rabrg.chip8.hardware.Engine;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.Processor;
+import me.rabrg.chip8.hardware.RomSource;
+
+/**
+ * A pool of independent machines stepped together across a fixed set of worker threads. The machines are split into
+ * contiguous chunks, each executed by one task, so idle workers pick up the remaining chunks of a step. Speeds count
+ * the instructions the processors actually executed, not the cycles requested, so fast-forwarded idle loops, cycles
+ * spent waiting for a key and the rest of a step of a machine which failed don't inflate them.
+ * <p>
+ * Every machine keeps its full state, so the pool runs any mix of ROMs and engines. Many copies of one ROM are better
+ * served by {@link me.rabrg.chip8.hardware.BatchMachine}, which packs the state of every instance into flat arrays.
+ */
+public final class MachinePool {
+
+    /**
+     * The number of machines executed by one task.
+     */
+    private static final int CHUNK_SIZE = 0x20;
+
+    /**
+     * The machines.
+     */
+    private final Machine[] machines;
+
+    /**
+     * The tasks executing the chunks of machines.
+     */
+    private final List<Chunk> chunks = new ArrayList<Chunk>();
+
+    /**
+     * The workers executing the tasks.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The total number of instructions executed.
+     */
+    private long instructions;
+
+    /**
+     * The total time spent executing in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     * The instructions per second of the last step.
+     */
+    private double lastSpeed;
+
+    /**
+     * Constructs a new pool of the specified number of machines loading ROMs from the specified source, executed by the
+     * specified number of threads with the specified engine.
+     *
+     * @param size      The number of machines.
+     * @param romSource The ROM source.
+     * @param engine    The engine.
+     * @param threads   The number of threads.
+     */
+    public MachinePool(final int size, final RomSource romSource, final Engine engine, final int threads) {
+        if (size <= 0 || threads <= 0)
+            throw new IllegalArgumentException("size and threads must be positive: " + size + ", " + threads);
+        machines = new Machine[size];
+        for (int index = 0; index < size; index++) {
+            machines[index] = new Machine(romSource);
+            machines[index].getProcessor().setEngine(engine);
+        }
+        for (int from = 0; from < size; from += CHUNK_SIZE)
+            chunks.add(new Chunk(from, Math.min(from + CHUNK_SIZE, size)));
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "chip8-pool-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Constructs a new pool of the specified number of machines loading ROMs from the specified source, executed by one
+     * thread per processor with the interpreter.
+     *
+     * @param size      The number of machines.
+     * @param romSource The ROM source.
+     */
+    public MachinePool(final int size, final RomSource romSource) {
+        this(size, romSource, Engine.INTERPRETER, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Resets every machine and loads the ROM with the specified name.
+     *
+     * @param name The name.
+     * @throws IOException If the ROM couldn't be read.
+     */
+    public void load(final String name) throws IOException {
+        for (final Machine machine : machines)
+            machine.load(name);
+    }
+
+    /**
+     * Executes the specified number of cycles on every machine, returning once all of them have finished.
+     *
+     * @param cycles The number of cycles per machine.
+     * @throws InterruptedException If the calling thread was interrupted while waiting.
+     */
+    public void run(final int cycles) throws InterruptedException {
+        for (final Chunk chunk : chunks)
+            chunk.cycles = cycles;
+        final long start = System.nanoTime();
+        final List<Future<Void>> futures = executor.invokeAll(chunks);
+        final long elapsed = System.nanoTime() - start;
+        long executed = 0;
+        for (final Chunk chunk : chunks)
+            executed += chunk.instructions;
+        instructions += executed;
+        nanos += elapsed;
+        lastSpeed = elapsed == 0 ? 0 : executed * 1e9 / elapsed;
+        for (final Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException("Machine failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Gets the machine at the specified index.
+     *
+     * @param index The index.
+     * @return The machine.
+     */
+    public Machine get(final int index) {
+        return machines[index];
+    }
+
+    /**
+     * Gets the number of machines.
+     *
+     * @return The number of machines.
+     */
+    public int size() {
+        return machines.length;
+    }
+
+    /**
+     * Gets the total number of instructions executed across every machine.
+     *
+     * @return The number of instructions.
+     */
+    public long getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Gets the aggregate instructions per second across every machine since the pool was created.
+     *
+     * @return The instructions per second.
+     */
+    public double getSpeed() {
+        return nanos == 0 ? 0 : instructions * 1e9 / nanos;
+    }
+
+    /**
+     * Gets the aggregate instructions per second across every machine during the last step.
+     *
+     * @return The instructions per second.
+     */
+    public double getLastSpeed() {
+        return lastSpeed;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The task executing one contiguous chunk of machines.
+     */
+    private final class Chunk implements Callable<Void> {
+
+        /**
+         * The index of the first machine, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The index of the last machine, exclusive.
+         */
+        private final int to;
+
+        /**
+         * The number of cycles to execute on every machine.
+         */
+        private int cycles;
+
+        /**
+         * The number of instructions executed by the machines of the chunk during the last step.
+         */
+        private long instructions;
+
+        /**
+         * Constructs a new task for the specified range of machines.
+         *
+         * @param from The index of the first machine, inclusive.
+         * @param to   The index of the last machine, exclusive.
+         */
+        private Chunk(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Void call() {
+            instructions = 0;
+            for (int index = from; index < to; index++) {
+                final Processor processor = machines[index].getProcessor();
+                final long before = processor.getInstructions();
+                try {
+                    machines[index].run(cycles);
+                } finally {
+                    instructions += processor.getInstructions() - before;
+                }
+            }
+            return null;
+        }
+    }
+}
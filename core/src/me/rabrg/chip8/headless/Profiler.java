@@ -0,0 +1,339 @@
+package me.rabrg.chip8.headless;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import me.rabrg.chip8.hardware.Instruction;
+import me.rabrg.chip8.hardware.Machine;
+import me.rabrg.chip8.hardware.Memory;
+import me.rabrg.chip8.hardware.Processor;
+
+/**
+ * An exact profiler of the ROM running on a machine. It executes the machine one cycle at a time and counts the cycles
+ * spent at every address, the calls of every subroutine, and the cycles spent waiting for a key by opcode FX0A or
+ * polling the delay timer in a tight loop. Cycles are attributed to a call tree shadowing the stack, which is written
+ * as collapsed stacks for flame graph tools. The machine runs as it would with the interpreter.
+ */
+public final class Profiler {
+
+    /**
+     * The most bytes between a backward jump and its target for the loop to count as a delay timer poll.
+     */
+    private static final int MAX_POLL_LOOP = 6;
+
+    /**
+     * The machine.
+     */
+    private final Machine machine;
+
+    /**
+     * The number of cycles executed at every address.
+     */
+    private final long[] samples = new long[Memory.SIZE];
+
+    /**
+     * The number of calls of the subroutine at every address.
+     */
+    private final long[] calls = new long[Memory.SIZE];
+
+    /**
+     * Whether or not every address is part of a loop polling the delay timer.
+     */
+    private final boolean[] polling = new boolean[Memory.SIZE];
+
+    /**
+     * The root of the call tree, the code outside any subroutine.
+     */
+    private Node root = new Node(null, -1);
+
+    /**
+     * The node of the subroutine currently executing.
+     */
+    private Node current = root;
+
+    /**
+     * The number of cycles executed.
+     */
+    private long cycles;
+
+    /**
+     * The number of cycles spent waiting for a key.
+     */
+    private long keyWait;
+
+    /**
+     * The number of cycles spent polling the delay timer.
+     */
+    private long delayWait;
+
+    /**
+     * Constructs a new profiler of the specified machine.
+     *
+     * @param machine The machine.
+     */
+    public Profiler(final Machine machine) {
+        this.machine = machine;
+    }
+
+    /**
+     * Executes and profiles the specified number of cycles.
+     *
+     * @param cycles The number of cycles.
+     */
+    public void run(final int cycles) {
+        final Processor processor = machine.getProcessor();
+        final Memory memory = processor.getMemory();
+        for (int c = 0; c < cycles; c++) {
+            this.cycles++;
+            if (processor.isWaiting()) {
+                processor.execute();
+                keyWait++;
+                current.keyWait++;
+                continue;
+            }
+            final int pc = processor.getProgramCounter();
+            final int opcode = memory.getOpcode(pc);
+            processor.execute();
+            samples[pc]++;
+            if (polling[pc]) {
+                delayWait++;
+                current.delayWait++;
+            } else {
+                current.self++;
+            }
+            switch (Instruction.of(opcode)) {
+                case Instruction.CALL:
+                    calls[opcode & 0xFFF]++;
+                    current = current.child(opcode & 0xFFF);
+                    break;
+                case Instruction.RET:
+                    if (current.parent != null)
+                        current = current.parent;
+                    break;
+                case Instruction.JP:
+                    final int target = opcode & 0xFFF;
+                    if (target <= pc && pc - target <= MAX_POLL_LOOP && !polling[pc] && pollsDelay(memory, target, pc))
+                        for (int address = target; address <= pc; address++)
+                            polling[address] = true;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns whether or not the loop between the specified addresses reads the delay timer.
+     *
+     * @param memory The memory.
+     * @param from   The first address of the loop.
+     * @param to     The address of the backward jump.
+     * @return Whether or not the loop reads the delay timer.
+     */
+    private static boolean pollsDelay(final Memory memory, final int from, final int to) {
+        for (int address = from; address < to; address += 2)
+            if (Instruction.of(memory.getOpcode(address)) == Instruction.LD_DT)
+                return true;
+        return false;
+    }
+
+    /**
+     * Discards everything recorded.
+     */
+    public void reset() {
+        for (int address = 0; address < Memory.SIZE; address++) {
+            samples[address] = calls[address] = 0;
+            polling[address] = false;
+        }
+        root = current = new Node(null, -1);
+        cycles = keyWait = delayWait = 0;
+    }
+
+    /**
+     * Gets the number of cycles profiled.
+     *
+     * @return The number of cycles.
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Gets the number of cycles executed at the specified address.
+     *
+     * @param address The address.
+     * @return The number of cycles.
+     */
+    public long getSamples(final int address) {
+        return samples[address];
+    }
+
+    /**
+     * Gets the number of calls of the subroutine at the specified address.
+     *
+     * @param address The address.
+     * @return The number of calls.
+     */
+    public long getCalls(final int address) {
+        return calls[address];
+    }
+
+    /**
+     * Gets the number of cycles spent waiting for a key press by opcode FX0A.
+     *
+     * @return The number of cycles.
+     */
+    public long getKeyWait() {
+        return keyWait;
+    }
+
+    /**
+     * Gets the number of cycles spent in loops polling the delay timer.
+     *
+     * @return The number of cycles.
+     */
+    public long getDelayWait() {
+        return delayWait;
+    }
+
+    /**
+     * Gets the addresses which executed the most cycles, most first.
+     *
+     * @param limit The most addresses returned.
+     * @return The addresses.
+     */
+    public List<Integer> getHotSpots(final int limit) {
+        final List<Integer> addresses = new ArrayList<Integer>();
+        for (int address = 0; address < Memory.SIZE; address++)
+            if (samples[address] != 0)
+                addresses.add(address);
+        Collections.sort(addresses, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                final long difference = samples[b] - samples[a];
+                return difference > 0 ? 1 : difference < 0 ? -1 : a - b;
+            }
+        });
+        return addresses.subList(0, Math.min(limit, addresses.size()));
+    }
+
+    /**
+     * Writes the histogram of the addresses executed, one line per address with its opcode, instruction and number of
+     * cycles, most cycles first.
+     *
+     * @param out The writer.
+     * @throws IOException If the histogram couldn't be written.
+     */
+    public void writeHistogram(final Writer out) throws IOException {
+        final Memory memory = machine.getProcessor().getMemory();
+        for (final int address : getHotSpots(Memory.SIZE)) {
+            final int opcode = memory.getOpcode(address);
+            out.write(String.format("%03X %04X %-8s %d%n", address, opcode, Instruction.getName(Instruction.of(opcode)),
+                    samples[address]));
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the call tree as collapsed stacks, one line per stack of subroutines with its number of cycles, as read
+     * by flame graph tools. Waiting for a key and polling the delay timer appear as frames of their own.
+     *
+     * @param out The writer.
+     * @throws IOException If the stacks couldn't be written.
+     */
+    public void writeCollapsedStacks(final Writer out) throws IOException {
+        write(out, root, "main");
+        out.flush();
+    }
+
+    /**
+     * Writes the collapsed stacks of the specified node and its children.
+     *
+     * @param out  The writer.
+     * @param node The node.
+     * @param path The stack of the node.
+     * @throws IOException If the stacks couldn't be written.
+     */
+    private static void write(final Writer out, final Node node, final String path) throws IOException {
+        if (node.self != 0)
+            out.write(path + " " + node.self + "\n");
+        if (node.keyWait != 0)
+            out.write(path + ";[FX0A wait] " + node.keyWait + "\n");
+        if (node.delayWait != 0)
+            out.write(path + ";[DT poll] " + node.delayWait + "\n");
+        for (int n = 0; n < node.count; n++)
+            write(out, node.children[n], path + ";" + String.format("sub_%03X", node.children[n].address));
+    }
+
+    /**
+     * A subroutine in the call tree, reached through the stack of its ancestors.
+     */
+    private static final class Node {
+
+        /**
+         * The caller, or null for the root.
+         */
+        private final Node parent;
+
+        /**
+         * The address of the subroutine, or -1 for the root.
+         */
+        private final int address;
+
+        /**
+         * The subroutines called.
+         */
+        private Node[] children = new Node[2];
+
+        /**
+         * The number of subroutines called.
+         */
+        private int count;
+
+        /**
+         * The number of cycles executed in the subroutine itself.
+         */
+        private long self;
+
+        /**
+         * The number of cycles spent waiting for a key in the subroutine.
+         */
+        private long keyWait;
+
+        /**
+         * The number of cycles spent polling the delay timer in the subroutine.
+         */
+        private long delayWait;
+
+        /**
+         * Constructs a new node.
+         *
+         * @param parent  The caller, or null for the root.
+         * @param address The address of the subroutine.
+         */
+        private Node(final Node parent, final int address) {
+            this.parent = parent;
+            this.address = address;
+        }
+
+        /**
+         * Gets the node of the specified subroutine called from this one, adding it the first time.
+         *
+         * @param address The address of the subroutine.
+         * @return The node.
+         */
+        private Node child(final int address) {
+            for (int n = 0; n < count; n++)
+                if (children[n].address == address)
+                    return children[n];
+            if (count == children.length) {
+                final Node[] children = new Node[count * 2];
+                System.arraycopy(this.children, 0, children, 0, count);
+                this.children = children;
+            }
+            return children[count++] = new Node(this, address);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package me.rabrg.chip8.headless;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.StateBuffer;
+
+/**
+ * A recording of the frames of a display, as written by {@link FrameRecorder}.
+ * <p>
+ * The format is a header of the magic "C8RC", a version byte and the width and height in pixels, followed by one
+ * record per frame: a varint of the number of 60 Hz frames since the previous record, a varint length and the
+ * {@link StateBuffer} delta of the 256 bytes of the frame, its rows packed big-endian, against the previous frame. The
+ * first frame is encoded against a blank frame. The recording ends with a varint zero and a varint of the number of
+ * 60 Hz frames the last frame was shown.
+ */
+public final class Recording {
+
+    /**
+     * The magic number every recording starts with.
+     */
+    private static final int MAGIC = 0x43385243;
+
+    /**
+     * The version of the format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of bytes of a packed frame.
+     */
+    static final int FRAME_SIZE = Display.HEIGHT * 8;
+
+    /**
+     * The maximum number of bytes of an encoded frame.
+     */
+    static final int MAX_DELTA_SIZE = StateBuffer.getMaxDeltaLength(FRAME_SIZE);
+
+    /**
+     * The rows of the frames, one frame after another.
+     */
+    private final long[] rows;
+
+    /**
+     * The number of 60 Hz frames every frame was shown.
+     */
+    private final int[] durations;
+
+    /**
+     * The number of frames.
+     */
+    private final int frames;
+
+    /**
+     * Constructs a new recording of the specified frames.
+     *
+     * @param rows      The rows of the frames, one frame after another.
+     * @param durations The number of 60 Hz frames every frame was shown.
+     * @param frames    The number of frames.
+     */
+    private Recording(final long[] rows, final int[] durations, final int frames) {
+        this.rows = rows;
+        this.durations = durations;
+        this.frames = frames;
+    }
+
+    /**
+     * Reads a recording from the specified stream. A recording cut short, such as by a crash, is read up to its last
+     * complete frame.
+     *
+     * @param in The stream.
+     * @return The recording.
+     * @throws IOException If the stream couldn't be read or isn't a recording.
+     */
+    public static Recording read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[0x1000];
+        for (int read; (read = in.read(chunk)) != -1; )
+            bytes.write(chunk, 0, read);
+        final byte[] data = bytes.toByteArray();
+        final StateBuffer buffer = new StateBuffer(data);
+        if (data.length < 7 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a recording");
+        final int version = buffer.get();
+        if (version != VERSION)
+            throw new IOException("Unsupported recording version: " + version);
+        final int width = buffer.get(), height = buffer.get();
+        if (width != Display.WIDTH || height != Display.HEIGHT)
+            throw new IOException("Unsupported recording size: " + width + "x" + height);
+
+        long[] rows = new long[Display.HEIGHT * 0x40];
+        int[] durations = new int[0x40];
+        final byte[] frame = new byte[FRAME_SIZE];
+        int frames = 0;
+        try {
+            while (true) {
+                final int ticks = buffer.getVarint();
+                final boolean end = ticks == 0;
+                if (frames > 0)
+                    durations[frames - 1] = end ? buffer.getVarint() : ticks;
+                if (end)
+                    break;
+                final int length = buffer.getVarint();
+                if (length > MAX_DELTA_SIZE)
+                    throw new IOException("Corrupt recording: frame of " + length + " bytes");
+                if (buffer.position() + length > data.length)
+                    break;
+                buffer.getDelta(frame, buffer.position() + length);
+                if (frames == durations.length) {
+                    durations = Arrays.copyOf(durations, frames * 2);
+                    rows = Arrays.copyOf(rows, frames * 2 * Display.HEIGHT);
+                }
+                final StateBuffer packed = new StateBuffer(frame);
+                for (int y = 0; y < Display.HEIGHT; y++)
+                    rows[frames * Display.HEIGHT + y] = packed.getLong();
+                durations[frames++] = 1;
+            }
+        } catch (final ArrayIndexOutOfBoundsException e) {
+            // Cut short, keep the complete frames.
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Corrupt recording: " + e.getMessage(), e);
+        }
+        return new Recording(rows, durations, frames);
+    }
+
+    /**
+     * Writes the header of a recording.
+     *
+     * @param out The stream.
+     * @throws IOException If the header couldn't be written.
+     */
+    static void writeHeader(final DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(Display.WIDTH);
+        out.writeByte(Display.HEIGHT);
+    }
+
+    /**
+     * Writes the record of a frame.
+     *
+     * @param out    The stream.
+     * @param ticks  The number of 60 Hz frames since the previous record, at least one.
+     * @param delta  The encoded frame.
+     * @param length The number of bytes of the encoded frame.
+     * @return The number of bytes written.
+     * @throws IOException If the record couldn't be written.
+     */
+    static int writeFrame(final DataOutputStream out, final int ticks, final byte[] delta, final int length)
+            throws IOException {
+        final byte[] header = new byte[10];
+        final StateBuffer buffer = new StateBuffer(header);
+        buffer.putVarint(ticks);
+        buffer.putVarint(length);
+        out.write(header, 0, buffer.position());
+        out.write(delta, 0, length);
+        return buffer.position() + length;
+    }
+
+    /**
+     * Writes the end of a recording.
+     *
+     * @param out   The stream.
+     * @param ticks The number of 60 Hz frames the last frame was shown.
+     * @return The number of bytes written.
+     * @throws IOException If the end couldn't be written.
+     */
+    static int writeEnd(final DataOutputStream out, final int ticks) throws IOException {
+        final byte[] end = new byte[6];
+        final StateBuffer buffer = new StateBuffer(end);
+        buffer.putVarint(0);
+        buffer.putVarint(ticks);
+        out.write(end, 0, buffer.position());
+        return buffer.position();
+    }
+
+    /**
+     * Gets the number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the pixels of the specified row of the specified frame, with the leftmost pixel in the most significant bit.
+     *
+     * @param frame The frame.
+     * @param y     The y coordinate.
+     * @return The pixels of the row.
+     */
+    public long getRow(final int frame, final int y) {
+        if (frame < 0 || frame >= frames)
+            throw new IndexOutOfBoundsException("No such frame: " + frame);
+        return rows[frame * Display.HEIGHT + y];
+    }
+
+    /**
+     * Gets the number of 60 Hz frames the specified frame was shown.
+     *
+     * @param frame The frame.
+     * @return The number of 60 Hz frames.
+     */
+    public int getDuration(final int frame) {
+        if (frame < 0 || frame >= frames)
+            throw new IndexOutOfBoundsException("No such frame: " + frame);
+        return durations[frame];
+    }
+
+    /**
+     * Gets the total number of 60 Hz frames the recording spans.
+     *
+     * @return The number of 60 Hz frames.
+     */
+    public long getLength() {
+        long length = 0;
+        for (int frame = 0; frame < frames; frame++)
+            length += durations[frame];
+        return length;
+    }
+}
@@ -0,0 +1,293 @@
+package me.rabrg.chip8.headless;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.rabrg.chip8.hardware.Processor;
+import me.rabrg.chip8.hardware.RomSource;
+
+/**
+ * A directory of ROMs indexed by the SHA-1 hash of their contents. Files are read through memory-mapped channels and
+ * validated once, and the bytes of the most recently read ROMs are kept in a cache bounded in bytes, so reloading a ROM
+ * after a reset is a copy from memory rather than a trip to the file system. ROMs with identical contents share one
+ * cache entry. Reads of cached ROMs never touch the file system, so changes to the directory are only seen by
+ * {@link #scan()} or when an evicted ROM is read again.
+ */
+public final class RomLibrary implements RomSource {
+
+    /**
+     * The default maximum number of bytes of cached ROMs.
+     */
+    private static final int DEFAULT_CAPACITY = 0x100000;
+
+    /**
+     * The directory containing the ROMs.
+     */
+    private final File directory;
+
+    /**
+     * The maximum number of bytes of cached ROMs.
+     */
+    private final int capacity;
+
+    /**
+     * The hashes of the indexed ROMs by name.
+     */
+    private final Map<String, String> hashes = new HashMap<String, String>();
+
+    /**
+     * The names of the indexed ROMs by hash.
+     */
+    private final Map<String, String> names = new HashMap<String, String>();
+
+    /**
+     * The cached ROM bytes by hash, least recently read first.
+     */
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<String, byte[]>(0x10, 0.75f, true);
+
+    /**
+     * The number of bytes of cached ROMs.
+     */
+    private int cached;
+
+    /**
+     * The number of reads served from the cache.
+     */
+    private long hits;
+
+    /**
+     * The number of reads served from the file system.
+     */
+    private long misses;
+
+    /**
+     * Constructs a new library of the ROMs in the specified directory, caching at most the specified number of bytes.
+     *
+     * @param directory The directory.
+     * @param capacity  The maximum number of bytes of cached ROMs.
+     * @throws IOException If the directory couldn't be indexed.
+     */
+    public RomLibrary(final File directory, final int capacity) throws IOException {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        this.directory = directory;
+        this.capacity = capacity;
+        scan();
+    }
+
+    /**
+     * Constructs a new library of the ROMs in the specified directory with the default cache capacity of 1 MB.
+     *
+     * @param directory The directory.
+     * @throws IOException If the directory couldn't be indexed.
+     */
+    public RomLibrary(final File directory) throws IOException {
+        this(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Indexes every file of the directory which is a valid ROM, discarding the previous index and cache. Files too
+     * large to fit in memory or empty are skipped.
+     *
+     * @throws IOException If the directory couldn't be listed or a file couldn't be read.
+     */
+    public synchronized void scan() throws IOException {
+        final File[] files = directory.listFiles();
+        if (files == null)
+            throw new IOException("Not a directory: " + directory);
+        hashes.clear();
+        names.clear();
+        cache.clear();
+        cached = 0;
+        for (final File file : files) {
+            if (file.isFile() && valid(file.length()))
+                index(file.getName(), map(file));
+        }
+    }
+
+    @Override
+    public synchronized byte[] read(final String name) throws IOException {
+        final String hash = hashes.get(name);
+        byte[] rom = hash == null ? null : cache.get(hash);
+        if (rom != null) {
+            hits++;
+            return rom.clone();
+        }
+        final File file = new File(directory, name);
+        if (!file.isFile())
+            throw new IOException("No such ROM: " + name);
+        misses++;
+        rom = map(file);
+        index(name, rom);
+        return rom.clone();
+    }
+
+    /**
+     * Reads the ROM with the specified content hash.
+     *
+     * @param hash The SHA-1 hash as 40 lowercase hexadecimal digits.
+     * @return The ROM bytes.
+     * @throws IOException If no indexed ROM has the hash or it couldn't be read.
+     */
+    public synchronized byte[] readByHash(final String hash) throws IOException {
+        final String name = names.get(hash);
+        if (name == null)
+            throw new IOException("No ROM with hash " + hash);
+        return read(name);
+    }
+
+    /**
+     * Gets the name of the indexed ROM with the specified content hash.
+     *
+     * @param hash The SHA-1 hash as 40 lowercase hexadecimal digits.
+     * @return The name, or null if no indexed ROM has the hash.
+     */
+    public synchronized String getName(final String hash) {
+        return names.get(hash);
+    }
+
+    /**
+     * Gets the content hash of the indexed ROM with the specified name.
+     *
+     * @param name The name.
+     * @return The SHA-1 hash as 40 lowercase hexadecimal digits, or null if no ROM with the name is indexed.
+     */
+    public synchronized String getHash(final String name) {
+        return hashes.get(name);
+    }
+
+    /**
+     * Gets the names of the indexed ROMs in alphabetical order.
+     *
+     * @return The names.
+     */
+    public synchronized List<String> getNames() {
+        final List<String> names = new ArrayList<String>(hashes.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Gets the number of reads served from the cache.
+     *
+     * @return The number of reads.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads served from the file system.
+     *
+     * @return The number of reads.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of bytes of cached ROMs.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized int getCached() {
+        return cached;
+    }
+
+    /**
+     * Indexes the specified contents under the specified name, caching them.
+     *
+     * @param name The name.
+     * @param rom  The contents.
+     */
+    private void index(final String name, final byte[] rom) {
+        final String hash = hash(rom);
+        final String previous = hashes.put(name, hash);
+        if (previous != null && name.equals(names.get(previous)))
+            names.remove(previous);
+        if (!names.containsKey(hash))
+            names.put(hash, name);
+        cache(hash, rom);
+    }
+
+    /**
+     * Caches the specified ROM bytes under the specified hash, evicting the least recently read ROMs beyond the
+     * capacity.
+     *
+     * @param hash The hash.
+     * @param rom  The ROM bytes.
+     */
+    private void cache(final String hash, final byte[] rom) {
+        final byte[] previous = cache.put(hash, rom);
+        cached += rom.length - (previous == null ? 0 : previous.length);
+        final Iterator<byte[]> iterator = cache.values().iterator();
+        while (cached > capacity && iterator.hasNext()) {
+            cached -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Reads the specified file through a memory-mapped channel.
+     *
+     * @param file The file.
+     * @return The contents.
+     * @throws IOException If the file couldn't be read.
+     */
+    private static byte[] map(final File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            if (!valid(size))
+                throw new IOException("Not a ROM: " + file + " is " + size + " bytes");
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final byte[] rom = new byte[(int) size];
+            buffer.get(rom);
+            return rom;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns whether or not the specified number of bytes is a valid ROM size.
+     *
+     * @param size The number of bytes.
+     * @return Whether or not the size is valid.
+     */
+    private static boolean valid(final long size) {
+        return size > 0 && size <= Processor.MAX_ROM_SIZE;
+    }
+
+    /**
+     * Hashes the specified ROM bytes.
+     *
+     * @param rom The ROM bytes.
+     * @return The SHA-1 hash as 40 lowercase hexadecimal digits.
+     */
+    public static String hash(final byte[] rom) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 unavailable", e);
+        }
+        final StringBuilder hex = new StringBuilder(40);
+        for (final byte b : digest.digest(rom))
+            hex.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+}
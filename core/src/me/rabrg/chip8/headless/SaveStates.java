@@ -0,0 +1,61 @@
+package me.rabrg.chip8.headless;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import me.rabrg.chip8.hardware.SaveState;
+
+/**
+ * Reads and writes save states as files.
+ */
+public final class SaveStates {
+
+    /**
+     * Prevents instantiation.
+     */
+    private SaveStates() {
+    }
+
+    /**
+     * Writes the specified save state to the specified file.
+     *
+     * @param state The save state.
+     * @param file  The file.
+     * @throws IOException If the file couldn't be written.
+     */
+    public static void write(final SaveState state, final File file) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(state.toByteArray());
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a save state from the specified file.
+     *
+     * @param file The file.
+     * @return The save state.
+     * @throws IOException If the file couldn't be read or isn't a save state.
+     */
+    public static SaveState read(final File file) throws IOException {
+        if (file.length() != SaveState.SIZE)
+            throw new IOException("Not a save state: " + file);
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] data = new byte[SaveState.SIZE];
+            new DataInputStream(in).readFully(data);
+            return SaveState.of(data);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BatchMachine}.
+ */
+public final class BatchMachineTest {
+
+    /**
+     * A ROM which recurses until its stack overflows while key 0 is held down, and otherwise counts in V1.
+     */
+    private static final byte[] RECURSE_ON_KEY = {
+            0x60, 0x00, // LD V0, 0
+            (byte) 0xE0, (byte) 0xA1, // SKNP V0
+            0x22, 0x04, // CALL 0x204
+            0x71, 0x01, // ADD V1, 1
+            0x12, 0x06 // JP 0x206
+    };
+
+    /**
+     * Tests that an instance overflowing its stack halts without touching the other instances.
+     */
+    @Test
+    public void testStackOverflowHaltsOnlyThatInstance() {
+        final BatchMachine batch = new BatchMachine(3);
+        batch.load(RECURSE_ON_KEY);
+        batch.setKeys(1, 0x1);
+        batch.run(100);
+        assertTrue(batch.isHalted(1));
+        assertEquals(0x204, batch.getProgramCounter(1));
+        for (final int n : new int[] {0, 2}) {
+            assertFalse(batch.isHalted(n));
+            assertEquals(49, batch.getRegister(n, 1));
+        }
+        batch.reset(1);
+        assertFalse(batch.isHalted(1));
+        assertEquals(Processor.ROM_START, batch.getProgramCounter(1));
+    }
+}
@@ -0,0 +1,44 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Movie}.
+ */
+public final class MovieTest {
+
+    /**
+     * The number of frames recorded.
+     */
+    private static final int FRAMES = 1200;
+
+    /**
+     * Tests that a movie read back from its bytes replays the recorded run exactly, on the interpreter and on the
+     * block engine.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testReplayMatchesRecording() throws IOException {
+        final Machine recorded = new Machine(Roms.SOURCE);
+        recorded.load("TETRIS");
+        final Movie movie = new Movie(0x5EED);
+        movie.start(recorded);
+        for (int frame = 0; frame < FRAMES; frame++)
+            movie.record(recorded, frame % 90 < 30 ? 0 : 1 << (4 + frame / 90 % 3));
+        final Movie read = Movie.of(movie.toByteArray());
+        assertEquals(FRAMES, read.length());
+        for (final Engine engine : new Engine[] {Engine.INTERPRETER, Engine.BLOCK}) {
+            final Machine replayed = new Machine(Roms.SOURCE);
+            replayed.getProcessor().setEngine(engine);
+            replayed.load("TETRIS");
+            read.play(replayed);
+            assertArrayEquals(engine.toString(), Roms.state(recorded), Roms.state(replayed));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests that the optimized execution paths of {@link Processor} reach the same states as plain interpretation.
+ */
+public final class ProcessorTest {
+
+    /**
+     * The bundled ROMs compared.
+     */
+    private static final String[] ROMS = {"TETRIS", "INVADERS", "BREAKOUT"};
+
+    /**
+     * The number of cycles executed between comparisons.
+     */
+    private static final int SLICE = 97;
+
+    /**
+     * The number of slices executed per ROM.
+     */
+    private static final int SLICES = 400;
+
+    /**
+     * Tests that the block engine matches the interpreter.
+     *
+     * @throws IOException If a ROM couldn't be loaded.
+     */
+    @Test
+    public void testBlockMatchesInterpreter() throws IOException {
+        for (final String rom : ROMS) {
+            final Machine block = Roms.machine(rom);
+            block.getProcessor().setEngine(Engine.BLOCK);
+            assertSameStates(rom, Roms.machine(rom), block);
+        }
+    }
+
+    /**
+     * Tests that fast-forwarding idle loops matches interpreting every cycle of them.
+     *
+     * @throws IOException If a ROM couldn't be loaded.
+     */
+    @Test
+    public void testFastForwardMatchesInterpreter() throws IOException {
+        for (final String rom : ROMS) {
+            final Machine interpreted = Roms.machine(rom);
+            interpreted.getProcessor().setFastForward(false);
+            final Machine fastForwarded = Roms.machine(rom);
+            fastForwarded.getProcessor().setFastForward(true);
+            assertSameStates(rom, interpreted, fastForwarded);
+        }
+    }
+
+    /**
+     * Tests that the block engine fast-forwarding idle loops matches the interpreter interpreting every cycle.
+     *
+     * @throws IOException If a ROM couldn't be loaded.
+     */
+    @Test
+    public void testFastForwardedBlockMatchesInterpreter() throws IOException {
+        for (final String rom : ROMS) {
+            final Machine interpreted = Roms.machine(rom);
+            interpreted.getProcessor().setFastForward(false);
+            final Machine block = Roms.machine(rom);
+            block.getProcessor().setEngine(Engine.BLOCK);
+            block.getProcessor().setFastForward(true);
+            assertSameStates(rom, interpreted, block);
+        }
+    }
+
+    /**
+     * Runs both machines side by side with the same keys, comparing their save states after every slice.
+     *
+     * @param rom      The name of the ROM, for the failure message.
+     * @param expected The reference machine.
+     * @param actual   The machine compared against it.
+     */
+    private static void assertSameStates(final String rom, final Machine expected, final Machine actual) {
+        for (int slice = 0; slice < SLICES; slice++) {
+            final int keys = slice / 25 % 3 == 0 ? 0 : 1 << (4 + slice / 25 % 3);
+            expected.getKeyboard().setKeys(keys);
+            actual.getKeyboard().setKeys(keys);
+            expected.run(SLICE);
+            actual.run(SLICE);
+            assertArrayEquals(rom + " diverged by cycle " + (slice + 1) * SLICE, Roms.state(expected),
+                    Roms.state(actual));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Rewind}.
+ */
+public final class RewindTest {
+
+    /**
+     * The number of cycles between snapshots.
+     */
+    private static final int INTERVAL = 8;
+
+    /**
+     * The maximum number of bytes of recorded snapshots.
+     */
+    private static final int CAPACITY = 200000;
+
+    /**
+     * The number of snapshots the steady state may fall short of the first full history by: two keyframes and their
+     * deltas, one for the eviction in progress and one for the varying size of the deltas.
+     */
+    private static final int SLACK = 0x41 * 2;
+
+    /**
+     * Tests that the history keeps recording deltas once it's full, rather than collapsing into keyframes.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testSteadyStateDoesNotShrink() throws IOException {
+        final Rewind rewind = new Rewind(Roms.machine("INVADERS"), INTERVAL, CAPACITY);
+        rewind.run(20000);
+        final int snapshots = rewind.getSnapshots();
+        assertTrue("history not full", rewind.getUsed() > CAPACITY - SaveState.SIZE);
+        for (int slice = 0; slice < 18; slice++) {
+            rewind.run(10000);
+            assertTrue("over capacity: " + rewind.getUsed(), rewind.getUsed() <= CAPACITY);
+            assertTrue("snapshots shrank: " + snapshots + " -> " + rewind.getSnapshots(),
+                    rewind.getSnapshots() > snapshots - SLACK);
+            assertTrue("window shrank: " + rewind.getCycle() + " - " + rewind.getOldestCycle(),
+                    rewind.getCycle() - rewind.getOldestCycle() >= (long) (snapshots - SLACK) * INTERVAL);
+        }
+    }
+
+    /**
+     * Tests that a history smaller than a keyframe and its deltas still respects its capacity.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testSmallCapacity() throws IOException {
+        final Rewind rewind = new Rewind(Roms.machine("INVADERS"), INTERVAL, SaveState.SIZE * 2);
+        for (int slice = 0; slice < 100; slice++) {
+            rewind.run(1000);
+            assertTrue("over capacity: " + rewind.getUsed(), rewind.getUsed() <= SaveState.SIZE * 2);
+        }
+    }
+
+    /**
+     * Tests that rewinding to a cycle, including one between snapshots, restores the state a straight run reaches.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testRewindMatchesStraightRun() throws IOException {
+        final Machine machine = Roms.machine("BREAKOUT");
+        final Rewind rewind = new Rewind(machine, INTERVAL, CAPACITY);
+        rewind.run(30000);
+        for (final long target : new long[] {29999, 25003, 20000, rewind.getOldestCycle() + 5}) {
+            assertTrue("outside the history: " + target, rewind.rewind(target));
+            assertEquals(target, rewind.getCycle());
+            final Machine straight = Roms.machine("BREAKOUT");
+            straight.run((int) target);
+            assertArrayEquals("diverged at " + target, Roms.state(straight), Roms.state(machine));
+        }
+        assertFalse(rewind.rewind(rewind.getOldestCycle() - 1));
+    }
+}
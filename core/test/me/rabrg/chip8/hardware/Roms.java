@@ -0,0 +1,52 @@
+package me.rabrg.chip8.hardware;
+
+import java.io.File;
+import java.io.IOException;
+
+import me.rabrg.chip8.headless.FileRomSource;
+
+/**
+ * Locates the bundled ROMs for the tests.
+ */
+final class Roms {
+
+    /**
+     * The source of the bundled ROMs, overridable with the chip8.roms system property.
+     */
+    static final RomSource SOURCE = new FileRomSource(new File(System.getProperty("chip8.roms", "../android/assets")));
+
+    /**
+     * The seed of the random numbers of every machine.
+     */
+    static final long SEED = 0x5EED;
+
+    /**
+     * Prevents instantiation.
+     */
+    private Roms() {
+    }
+
+    /**
+     * Creates a machine with the specified bundled ROM loaded and a fixed seed.
+     *
+     * @param name The name of the ROM.
+     * @return The machine.
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    static Machine machine(final String name) throws IOException {
+        final Machine machine = new Machine(SOURCE);
+        machine.getProcessor().setSeed(SEED);
+        machine.load(name);
+        return machine;
+    }
+
+    /**
+     * Captures the save state of the specified machine as bytes.
+     *
+     * @param machine The machine.
+     * @return The bytes.
+     */
+    static byte[] state(final Machine machine) {
+        return SaveState.capture(machine).toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link SaveState}.
+ */
+public final class SaveStateTest {
+
+    /**
+     * The offset of the program counter in a save state, after the header, the memory, the registers and the stack.
+     */
+    private static final int PC = 4 + 1 + Memory.SIZE + 0x10 + 0x10 * 2;
+
+    /**
+     * The offset of the address pointer in a save state.
+     */
+    private static final int I = PC + 2;
+
+    /**
+     * The offset of the stack pointer in a save state.
+     */
+    private static final int SP = I + 2;
+
+    /**
+     * The offset of the register waiting for a key in a save state.
+     */
+    private static final int WAITING = SP + 3;
+
+    /**
+     * Tests that a machine restored from the bytes of a save state continues exactly like the machine it was saved
+     * from.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Machine original = Roms.machine("TETRIS");
+        original.getKeyboard().setKeys(0x10);
+        original.run(5000);
+        final Machine restored = Roms.machine("INVADERS");
+        SaveState.of(Roms.state(original)).restore(restored);
+        assertArrayEquals(Roms.state(original), Roms.state(restored));
+        original.run(5000);
+        restored.run(5000);
+        assertArrayEquals(Roms.state(original), Roms.state(restored));
+    }
+
+    /**
+     * Tests that a save state with a stack pointer past the stack is rejected.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testStackPointerOutOfRange() throws IOException {
+        final byte[] data = Roms.state(Roms.machine("TETRIS"));
+        data[SP] = 0x10;
+        SaveState.of(data);
+    }
+
+    /**
+     * Tests that a save state waiting for a key into a register which doesn't exist is rejected.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWaitingOutOfRange() throws IOException {
+        final byte[] data = Roms.state(Roms.machine("TETRIS"));
+        data[WAITING] = (byte) 0xFE;
+        SaveState.of(data);
+    }
+
+    /**
+     * Tests that a save state with a program counter past the end of memory is rejected.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testProgramCounterOutOfRange() throws IOException {
+        final byte[] data = Roms.state(Roms.machine("TETRIS"));
+        data[PC] = 0x20;
+        SaveState.of(data);
+    }
+
+    /**
+     * Tests that a save state with an address pointer past the end of memory is rejected.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddressPointerOutOfRange() throws IOException {
+        final byte[] data = Roms.state(Roms.machine("TETRIS"));
+        data[I] = 0x10;
+        SaveState.of(data);
+    }
+}
@@ -0,0 +1,60 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link StateBuffer}.
+ */
+public final class StateBufferTest {
+
+    /**
+     * Tests that a delta applied to its base gives back the bytes it was encoded from, with runs at both ends.
+     */
+    @Test
+    public void testDeltaRoundTrip() {
+        final byte[] base = new byte[300];
+        final byte[] current = new byte[base.length];
+        final SplitMix random = new SplitMix(1);
+        for (int index = 0; index < base.length; index++) {
+            base[index] = (byte) random.nextByte();
+            current[index] = index < 3 || index > 290 || index % 7 == 0 ? (byte) random.nextByte() : base[index];
+        }
+        final byte[] delta = new byte[StateBuffer.getMaxDeltaLength(base.length)];
+        final StateBuffer out = new StateBuffer(delta);
+        out.putDelta(base, current);
+        final StateBuffer in = new StateBuffer(delta);
+        in.getDelta(base, out.position());
+        assertArrayEquals(current, base);
+        assertEquals(out.position(), in.position());
+    }
+
+    /**
+     * Tests that a delta of identical bytes is empty.
+     */
+    @Test
+    public void testUnchangedDeltaIsEmpty() {
+        final StateBuffer out = new StateBuffer(new byte[StateBuffer.getMaxDeltaLength(16)]);
+        out.putDelta(new byte[16], new byte[16]);
+        assertEquals(0, out.position());
+    }
+
+    /**
+     * Tests that a delta with a run past the end of the bytes is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRunPastEnd() {
+        final byte[] delta = {0x0E, 0x04, 1, 2, 3, 4};
+        new StateBuffer(delta).getDelta(new byte[16], delta.length);
+    }
+
+    /**
+     * Tests that a varint longer than five bytes is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testVarintTooLong() {
+        new StateBuffer(new byte[] {-1, -1, -1, -1, -1, 1}).getVarint();
+    }
+}
@@ -0,0 +1,82 @@
+package me.rabrg.chip8.hardware;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link TransitionCache}.
+ */
+public final class TransitionCacheTest {
+
+    /**
+     * The number of frames stepped.
+     */
+    private static final int FRAMES = 300;
+
+    /**
+     * Tests that frames restored from the memo by the interpreter reach the states of a straight run.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testHitsMatchInterpreter() throws IOException {
+        assertHitsMatch(Engine.INTERPRETER);
+    }
+
+    /**
+     * Tests that frames restored from the memo by the block engine reach the states of a straight run, and that the
+     * blocks kept across a restore execute like freshly decoded ones.
+     *
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    @Test
+    public void testHitsMatchBlockEngine() throws IOException {
+        assertHitsMatch(Engine.BLOCK);
+    }
+
+    /**
+     * Steps the same frames twice through the memo with the specified engine, the second time from the memo, and
+     * compares every state with an interpreted straight run.
+     *
+     * @param engine The engine.
+     * @throws IOException If the ROM couldn't be loaded.
+     */
+    private static void assertHitsMatch(final Engine engine) throws IOException {
+        final Machine straight = Roms.machine("BREAKOUT");
+        final Machine memoized = Roms.machine("BREAKOUT");
+        memoized.getProcessor().setEngine(engine);
+        final SaveState start = SaveState.capture(memoized);
+        final TransitionCache cache = new TransitionCache(1 << 24);
+        final byte[][] states = new byte[FRAMES][];
+        for (int frame = 0; frame < FRAMES; frame++) {
+            straight.getKeyboard().setKeys(keys(frame));
+            straight.run(straight.getTimer().getPeriod());
+            states[frame] = Roms.state(straight);
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            start.restore(memoized);
+            for (int frame = 0; frame < FRAMES; frame++) {
+                cache.step(memoized, keys(frame));
+                assertArrayEquals("pass " + pass + ", frame " + frame, states[frame], Roms.state(memoized));
+            }
+        }
+        assertEquals(FRAMES, cache.getHits());
+        straight.run(10000);
+        memoized.run(10000);
+        assertArrayEquals(Roms.state(straight), Roms.state(memoized));
+    }
+
+    /**
+     * Gets the keypad state held on the specified frame, alternating between moving left and right.
+     *
+     * @param frame The frame.
+     * @return The keypad state.
+     */
+    private static int keys(final int frame) {
+        return frame / 20 % 2 == 0 ? 1 << 4 : 1 << 6;
+    }
+}
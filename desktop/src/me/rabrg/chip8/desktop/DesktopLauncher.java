@@ -4,6 +4,7 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
 import me.rabrg.chip8.CHIP8Emulator;
+import me.rabrg.chip8.concurrent.ThreadedRunner;
 
 // TODO: mobile device support
 public final class DesktopLauncher {
@@ -12,9 +13,9 @@ public final class DesktopLauncher {
         final LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
         config.width = 512;
         config.height = 256;
-        config.backgroundFPS = 0;
-        config.foregroundFPS = 0;
+        config.backgroundFPS = 60;
+        config.foregroundFPS = 60;
         config.vSyncEnabled = false;
-        new LwjglApplication(new CHIP8Emulator(), config);
+        new LwjglApplication(new CHIP8Emulator(new ThreadedRunner()), config);
     }
 }
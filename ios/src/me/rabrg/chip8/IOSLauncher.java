@@ -6,6 +6,8 @@ import com.badlogic.gdx.backends.iosrobovm.IOSApplicationConfiguration;
 import org.robovm.apple.foundation.NSAutoreleasePool;
 import org.robovm.apple.uikit.UIApplication;
 
+import me.rabrg.chip8.concurrent.ThreadedRunner;
+
 public final class IOSLauncher extends IOSApplication.Delegate {
 
     public static void main(final String[] args) {
@@ -17,6 +19,6 @@ public final class IOSLauncher extends IOSApplication.Delegate {
     @Override
     protected IOSApplication createApplication() {
         final IOSApplicationConfiguration config = new IOSApplicationConfiguration();
-        return new IOSApplication(new CHIP8Emulator(), config);
+        return new IOSApplication(new CHIP8Emulator(new ThreadedRunner()), config);
     }
 }
\ No newline at end of file
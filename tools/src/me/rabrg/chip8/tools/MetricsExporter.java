@@ -0,0 +1,224 @@
+package me.rabrg.chip8.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import me.rabrg.chip8.hardware.Instruction;
+import me.rabrg.chip8.hardware.Metrics;
+
+/**
+ * Publishes the metrics of a machine as a JMX bean and, optionally, as JSON over HTTP on the loopback interface. Rates
+ * are measured between snapshots taken at most once per second as the metrics are read.
+ */
+public final class MetricsExporter implements MetricsMXBean {
+
+    /**
+     * The shortest time between snapshots in nanoseconds.
+     */
+    private static final long WINDOW = 1000000000L;
+
+    /**
+     * The metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * The snapshot before the latest one.
+     */
+    private Metrics.Snapshot previous;
+
+    /**
+     * The latest snapshot.
+     */
+    private Metrics.Snapshot latest;
+
+    /**
+     * The name the bean is registered under, or null if it isn't.
+     */
+    private ObjectName name;
+
+    /**
+     * The HTTP server, or null if it isn't serving.
+     */
+    private HttpServer server;
+
+    /**
+     * Constructs a new exporter of the specified metrics.
+     *
+     * @param metrics The metrics.
+     */
+    public MetricsExporter(final Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Registers the bean with the platform MBean server under the specified name.
+     *
+     * @param machine The name of the machine.
+     * @throws JMException If the bean couldn't be registered.
+     */
+    public synchronized void register(final String machine) throws JMException {
+        if (name != null)
+            throw new IllegalStateException("Already registered as " + name);
+        final ObjectName name = new ObjectName("me.rabrg.chip8:type=Metrics,name=" + ObjectName.quote(machine));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        this.name = name;
+    }
+
+    /**
+     * Serves the metrics as JSON at /metrics on the specified port of the loopback interface.
+     *
+     * @param port The port.
+     * @throws IOException If the server couldn't be started.
+     */
+    public synchronized void serve(final int port) throws IOException {
+        if (server != null)
+            throw new IllegalStateException("Already serving on " + server.getAddress());
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final byte[] body = toJson().getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream out = exchange.getResponseBody();
+                try {
+                    out.write(body);
+                } finally {
+                    out.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops serving and unregisters the bean.
+     *
+     * @throws JMException If the bean couldn't be unregistered.
+     */
+    public synchronized void close() throws JMException {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (name != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            name = null;
+        }
+    }
+
+    /**
+     * Formats the metrics as a JSON object.
+     *
+     * @return The JSON.
+     */
+    public synchronized String toJson() {
+        final StringBuilder json = new StringBuilder("{");
+        json.append("\"cycles\":").append(getCycles());
+        json.append(",\"speed\":").append(getSpeed());
+        json.append(",\"targetSpeed\":").append(getTargetSpeed());
+        json.append(",\"drawsPerFrame\":").append(getDrawsPerFrame());
+        json.append(",\"collisionRate\":").append(getCollisionRate());
+        json.append(",\"meanDrift\":").append(getMeanDrift());
+        json.append(",\"maxDrift\":").append(getMaxDrift());
+        json.append(",\"meanRenderTime\":").append(getMeanRenderTime());
+        json.append(",\"maxRenderTime\":").append(getMaxRenderTime());
+        json.append(",\"instructions\":{");
+        boolean first = true;
+        for (final Map.Entry<String, Long> entry : getInstructions().entrySet()) {
+            if (!first)
+                json.append(',');
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Takes a new snapshot if the latest is older than the window.
+     */
+    private synchronized void refresh() {
+        final long now = System.nanoTime();
+        if (latest == null) {
+            previous = latest = metrics.snapshot(now);
+        } else if (now - latest.getTime() >= WINDOW) {
+            previous = latest;
+            latest = metrics.snapshot(now);
+        }
+    }
+
+    @Override
+    public synchronized long getCycles() {
+        refresh();
+        return latest.getCycles();
+    }
+
+    @Override
+    public synchronized double getSpeed() {
+        refresh();
+        return latest.getSpeed(previous);
+    }
+
+    @Override
+    public synchronized int getTargetSpeed() {
+        refresh();
+        return latest.getTargetSpeed();
+    }
+
+    @Override
+    public synchronized double getDrawsPerFrame() {
+        refresh();
+        return latest.getDrawsPerFrame(previous);
+    }
+
+    @Override
+    public synchronized double getCollisionRate() {
+        refresh();
+        return latest.getCollisionRate(previous);
+    }
+
+    @Override
+    public synchronized double getMeanDrift() {
+        refresh();
+        return latest.getMeanDrift(previous);
+    }
+
+    @Override
+    public synchronized long getMaxDrift() {
+        refresh();
+        return latest.getMaxDrift();
+    }
+
+    @Override
+    public synchronized double getMeanRenderTime() {
+        refresh();
+        return latest.getMeanRenderTime(previous);
+    }
+
+    @Override
+    public synchronized long getMaxRenderTime() {
+        refresh();
+        return latest.getMaxRenderTime();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getInstructions() {
+        refresh();
+        final Map<String, Long> instructions = new LinkedHashMap<String, Long>();
+        for (int instruction = 0; instruction < Instruction.COUNT; instruction++)
+            instructions.put(Instruction.getName(instruction), latest.getInstructions(instruction));
+        return instructions;
+    }
+}
@@ -0,0 +1,79 @@
+package me.rabrg.chip8.tools;
+
+import java.util.Map;
+
+/**
+ * The management interface of the metrics of a machine, with every rate measured over the last second.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Gets the number of cycles executed.
+     *
+     * @return The number of cycles.
+     */
+    long getCycles();
+
+    /**
+     * Gets the cycles executed per second.
+     *
+     * @return The cycles per second.
+     */
+    double getSpeed();
+
+    /**
+     * Gets the instructions per second the runner aims for.
+     *
+     * @return The instructions per second, or zero if the runner is unthrottled.
+     */
+    int getTargetSpeed();
+
+    /**
+     * Gets the sprites drawn per 60 Hz frame.
+     *
+     * @return The sprites per frame.
+     */
+    double getDrawsPerFrame();
+
+    /**
+     * Gets the fraction of sprites drawn which erased a pixel.
+     *
+     * @return The fraction.
+     */
+    double getCollisionRate();
+
+    /**
+     * Gets the mean nanoseconds timeslices started late.
+     *
+     * @return The nanoseconds.
+     */
+    double getMeanDrift();
+
+    /**
+     * Gets the most nanoseconds a timeslice has started late.
+     *
+     * @return The nanoseconds.
+     */
+    long getMaxDrift();
+
+    /**
+     * Gets the mean nanoseconds spent rendering a frame.
+     *
+     * @return The nanoseconds.
+     */
+    double getMeanRenderTime();
+
+    /**
+     * Gets the most nanoseconds spent rendering a frame.
+     *
+     * @return The nanoseconds.
+     */
+    long getMaxRenderTime();
+
+    /**
+     * Gets the number of times every instruction has been executed, by name.
+     *
+     * @return The number of executions of every instruction.
+     */
+    Map<String, Long> getInstructions();
+}
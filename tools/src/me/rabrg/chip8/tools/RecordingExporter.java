@@ -0,0 +1,174 @@
+package me.rabrg.chip8.tools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import me.rabrg.chip8.hardware.Display;
+import me.rabrg.chip8.hardware.Runner;
+import me.rabrg.chip8.headless.Recording;
+
+/**
+ * Exports recordings to PNG sequences and animated GIFs.
+ */
+public final class RecordingExporter {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RecordingExporter() {
+    }
+
+    /**
+     * Writes every frame of the specified recording as a PNG image named frame00000.png onwards in the specified
+     * directory, scaled up by the specified factor. Every frame is written once, however long it was shown.
+     *
+     * @param recording The recording.
+     * @param directory The directory.
+     * @param scale     The number of image pixels per display pixel.
+     * @throws IOException If an image couldn't be written.
+     */
+    public static void exportPng(final Recording recording, final File directory, final int scale)
+            throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Couldn't create " + directory);
+        final BufferedImage image = image(scale);
+        for (int frame = 0; frame < recording.getFrames(); frame++) {
+            render(recording, frame, image, scale);
+            final File file = new File(directory, String.format("frame%05d.png", frame));
+            if (!ImageIO.write(image, "png", file))
+                throw new IOException("No PNG writer available");
+        }
+    }
+
+    /**
+     * Writes the frames of the specified recording as a looping animated GIF to the specified stream, scaled up by the
+     * specified factor. GIF delays are in hundredths of a second and viewers show delays below two as ten, so frames
+     * shorter than that are merged into the frame after them, keeping the total time of the recording.
+     *
+     * @param recording The recording.
+     * @param out       The stream.
+     * @param scale     The number of image pixels per display pixel.
+     * @throws IOException If the animation couldn't be written.
+     */
+    public static void exportGif(final Recording recording, final OutputStream out, final int scale)
+            throws IOException {
+        final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext())
+            throw new IOException("No GIF writer available");
+        final ImageWriter writer = writers.next();
+        final BufferedImage image = image(scale);
+        final ImageOutputStream stream = ImageIO.createImageOutputStream(out);
+        try {
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+            long ticks = 0;
+            long shown = 0;
+            final int frames = recording.getFrames();
+            for (int frame = 0; frame < frames; frame++) {
+                ticks += recording.getDuration(frame);
+                final long end = ticks * 100 / Runner.TIMER_RATE;
+                if (end - shown < 2 && frame < frames - 1)
+                    continue;
+                render(recording, frame, image, scale);
+                final IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), null);
+                configure(metadata, (int) (end - shown), shown == 0);
+                writer.writeToSequence(new IIOImage(image, null, metadata), null);
+                shown = end;
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+            stream.close();
+        }
+    }
+
+    /**
+     * Sets the delay of the specified GIF image metadata and, for the first image, makes the animation loop.
+     *
+     * @param metadata The metadata.
+     * @param delay    The delay in hundredths of a second.
+     * @param first    Whether or not the image is the first.
+     * @throws IOException If the metadata couldn't be set.
+     */
+    private static void configure(final IIOMetadata metadata, final int delay, final boolean first)
+            throws IOException {
+        final String format = metadata.getNativeMetadataFormatName();
+        final IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+        final IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(Math.min(delay, 0xFFFF)));
+        control.setAttribute("transparentColorIndex", "0");
+        if (first) {
+            final IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] {1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(format, root);
+    }
+
+    /**
+     * Gets the child of the specified node with the specified name, adding it if there is none.
+     *
+     * @param node The node.
+     * @param name The name.
+     * @return The child.
+     */
+    private static IIOMetadataNode child(final IIOMetadataNode node, final String name) {
+        for (int index = 0; index < node.getLength(); index++) {
+            if (node.item(index).getNodeName().equals(name))
+                return (IIOMetadataNode) node.item(index);
+        }
+        final IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+
+    /**
+     * Creates a black and white image of a frame scaled up by the specified factor.
+     *
+     * @param scale The number of image pixels per display pixel.
+     * @return The image.
+     */
+    private static BufferedImage image(final int scale) {
+        if (scale <= 0)
+            throw new IllegalArgumentException("scale must be positive: " + scale);
+        return new BufferedImage(Display.WIDTH * scale, Display.HEIGHT * scale, BufferedImage.TYPE_BYTE_BINARY);
+    }
+
+    /**
+     * Renders the specified frame of the specified recording into the specified image.
+     *
+     * @param recording The recording.
+     * @param frame     The frame.
+     * @param image     The image.
+     * @param scale     The number of image pixels per display pixel.
+     */
+    private static void render(final Recording recording, final int frame, final BufferedImage image,
+            final int scale) {
+        final WritableRaster raster = image.getRaster();
+        final int[] pixels = new int[image.getWidth()];
+        for (int y = 0; y < Display.HEIGHT; y++) {
+            final long row = recording.getRow(frame, y);
+            for (int x = 0; x < pixels.length; x++)
+                pixels[x] = (int) (row >>> (Display.WIDTH - 1 - x / scale)) & 1;
+            for (int line = 0; line < scale; line++)
+                raster.setPixels(0, y * scale + line, pixels.length, 1, pixels);
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package me.rabrg.chip8.tools;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import me.rabrg.chip8.hardware.Instruction;
+import me.rabrg.chip8.hardware.Memory;
+import me.rabrg.chip8.hardware.Processor;
+import me.rabrg.chip8.headless.RomLibrary;
+
+/**
+ * Translates ROMs ahead of time into classes executed by the {@link me.rabrg.chip8.hardware.Engine#AOT} engine. The
+ * code reachable from the start of a ROM is found by following every jump, call and skip with a constant target, and
+ * every block of it becomes a method of a generated Java class, compiled with the system Java compiler. Compiled
+ * classes are cached on disk by the hash of their ROM, so later runs load them without compiling.
+ */
+public final class Translator {
+
+    /**
+     * The version of the generated code, part of every class name so classes of older versions are never loaded.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The package of the generated classes.
+     */
+    private static final String PACKAGE = "me.rabrg.chip8.translated";
+
+    /**
+     * The address ROMs are loaded at.
+     */
+    private static final int START = 0x200;
+
+    /**
+     * The maximum number of instructions in a block.
+     */
+    private static final int MAX_LENGTH = 0x40;
+
+    /**
+     * The number of blocks dispatched by one generated method.
+     */
+    private static final int CHUNK_SIZE = 0x100;
+
+    /**
+     * The directory the compiled classes are cached in.
+     */
+    private final File directory;
+
+    /**
+     * The loaded classes by name.
+     */
+    private final Map<String, Class<? extends Processor.Translation>> classes =
+            new HashMap<String, Class<? extends Processor.Translation>>();
+
+    /**
+     * Constructs a new translator caching compiled classes in the specified directory.
+     *
+     * @param directory The directory, created if it doesn't exist.
+     */
+    public Translator(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Translates the specified ROM, loading its class from memory or disk if it has been compiled before. Every call
+     * returns a new translation, to be set on one processor.
+     *
+     * @param rom The ROM bytes.
+     * @return The translation.
+     * @throws IOException If the class couldn't be read or written, or no Java compiler is available to compile it.
+     */
+    public synchronized Processor.Translation translate(final byte[] rom) throws IOException {
+        if (rom.length == 0 || rom.length > Processor.MAX_ROM_SIZE)
+            throw new IllegalArgumentException("Not a ROM: " + rom.length + " bytes");
+        final String name = "T" + VERSION + "_" + RomLibrary.hash(rom);
+        Class<? extends Processor.Translation> type = classes.get(name);
+        if (type == null) {
+            final File file = new File(directory, (PACKAGE + "." + name).replace('.', File.separatorChar) + ".class");
+            if (!file.isFile())
+                compile(name, source(name, rom));
+            type = new Loader().define(PACKAGE + "." + name, read(file)).asSubclass(Processor.Translation.class);
+            classes.put(name, type);
+        }
+        try {
+            return type.getConstructor().newInstance();
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalStateException("Couldn't instantiate " + name, e);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException("Couldn't instantiate " + name, e.getCause());
+        } catch (final InstantiationException e) {
+            throw new IllegalStateException("Couldn't instantiate " + name, e);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Couldn't instantiate " + name, e);
+        }
+    }
+
+    /**
+     * Compiles the specified source of the class with the specified name into the cache directory.
+     *
+     * @param name   The simple name of the class.
+     * @param source The source.
+     * @throws IOException If no compiler is available or the source didn't compile.
+     */
+    private void compile(final String name, final String source) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IOException("No Java compiler available to translate " + name);
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Couldn't create " + directory);
+        final StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+        try {
+            final JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///"
+                    + (PACKAGE + "." + name).replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                    JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            final List<String> options = Arrays.asList("-d", directory.getPath(), "-classpath", classPath(),
+                    "-proc:none", "-nowarn", "-g:none");
+            final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+            final StringWriter out = new StringWriter();
+            if (!compiler.getTask(out, files, diagnostics, options, null, Arrays.asList(unit)).call()) {
+                final StringBuilder message = new StringBuilder("Couldn't compile ").append(name).append(out);
+                for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+                    message.append('\n').append(diagnostic.getMessage(null));
+                throw new IOException(message.toString());
+            }
+        } finally {
+            files.close();
+        }
+    }
+
+    /**
+     * Gets the class path to compile against: the location of the processor class and the class path of the JVM.
+     *
+     * @return The class path.
+     */
+    private static String classPath() {
+        final String path = System.getProperty("java.class.path");
+        try {
+            final File location = new File(Processor.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return location.getPath() + File.pathSeparator + path;
+        } catch (final Exception e) {
+            return path;
+        }
+    }
+
+    /**
+     * Reads the specified class file.
+     *
+     * @param file The file.
+     * @return The bytes.
+     * @throws IOException If the file couldn't be read.
+     */
+    private static byte[] read(final File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int) file.length()];
+            new DataInputStream(in).readFully(bytes);
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Generates the source of the class with the specified name translating the specified ROM.
+     *
+     * @param name The simple name of the class.
+     * @param rom  The ROM bytes.
+     * @return The source.
+     */
+    static String source(final String name, final byte[] rom) {
+        final List<int[]> blocks = blocks(rom);
+        final StringBuilder out = new StringBuilder(0x10000);
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import me.rabrg.chip8.hardware.Instruction;\n");
+        out.append("import me.rabrg.chip8.hardware.Processor;\n\n");
+        out.append("public final class ").append(name).append(" extends Processor.Translation {\n\n");
+        out.append("    private static final String ROM = \"");
+        for (final byte b : rom)
+            out.append(String.format("\\%03o", b & 0xFF));
+        out.append("\";\n\n");
+        out.append("    private static final int[] BOUNDS = {");
+        for (int b = 0; b < blocks.size(); b++) {
+            final int[] block = blocks.get(b);
+            out.append(b % 8 == 0 ? "\n            " : " ");
+            out.append(hex(block[0])).append(", ").append(hex(block[block.length - 1] + 2)).append(',');
+        }
+        out.append("\n    };\n\n");
+        out.append("    public ").append(name).append("() {\n        super(ROM, BOUNDS);\n    }\n\n");
+
+        out.append("    @Override\n    protected void run(final int block) {\n        switch (block / ")
+                .append(CHUNK_SIZE).append(") {\n");
+        for (int chunk = 0; chunk * CHUNK_SIZE <= blocks.size(); chunk++)
+            out.append("            case ").append(chunk).append(": run").append(chunk).append("(block); return;\n");
+        out.append("        }\n    }\n");
+        for (int chunk = 0; chunk * CHUNK_SIZE <= blocks.size(); chunk++) {
+            out.append("\n    private void run").append(chunk).append("(final int block) {\n");
+            out.append("        switch (block) {\n");
+            for (int b = Math.max(1, chunk * CHUNK_SIZE); b < (chunk + 1) * CHUNK_SIZE && b <= blocks.size(); b++)
+                out.append("            case ").append(b).append(": b").append(hex(blocks.get(b - 1)[0]))
+                        .append("(); return;\n");
+            out.append("        }\n    }\n");
+        }
+        for (final int[] block : blocks)
+            block(out, rom, block);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Finds the blocks of the specified ROM reachable from its start, following every constant target.
+     *
+     * @param rom The ROM bytes.
+     * @return The addresses of the instructions of every block, in order of their first address.
+     */
+    static List<int[]> blocks(final byte[] rom) {
+        final boolean[] seen = new boolean[Memory.SIZE];
+        final int[] pending = new int[Memory.SIZE];
+        int count = 0;
+        pending[count++] = START;
+        seen[START] = true;
+        final List<int[]> blocks = new ArrayList<int[]>();
+        while (count > 0) {
+            final int[] block = new int[MAX_LENGTH];
+            int length = 0;
+            int address = pending[--count];
+            while (true) {
+                block[length++] = address;
+                final int opcode = opcode(rom, address);
+                final int instruction = Instruction.of(opcode);
+                final int[] targets = targets(instruction, opcode, address);
+                for (final int target : targets) {
+                    if (translatable(rom, target) && !seen[target]) {
+                        seen[target] = true;
+                        pending[count++] = target;
+                    }
+                }
+                if (targets.length > 0 || length == MAX_LENGTH || !translatable(rom, address + 2)) {
+                    if (targets.length == 0 && translatable(rom, address + 2) && !seen[address + 2]) {
+                        seen[address + 2] = true;
+                        pending[count++] = address + 2;
+                    }
+                    break;
+                }
+                address += 2;
+            }
+            blocks.add(Arrays.copyOf(block, length));
+        }
+        Collections.sort(blocks, new Comparator<int[]>() {
+            @Override
+            public int compare(final int[] first, final int[] second) {
+                return first[0] - second[0];
+            }
+        });
+        return blocks;
+    }
+
+    /**
+     * Gets the constant addresses the specified instruction can continue at, or an empty array if it doesn't end a
+     * block. Instructions ending a block without a constant target, returns and computed jumps, have none either but
+     * are marked by a single negative address.
+     *
+     * @param instruction The instruction.
+     * @param opcode      The opcode.
+     * @param address     The address of the instruction.
+     * @return The addresses.
+     */
+    private static int[] targets(final int instruction, final int opcode, final int address) {
+        switch (instruction) {
+            case Instruction.RET:
+            case Instruction.JP_V0:
+                return new int[] {-1};
+            case Instruction.JP:
+                return new int[] {opcode & 0xFFF};
+            case Instruction.CALL:
+                return new int[] {opcode & 0xFFF, address + 2};
+            case Instruction.SE_BYTE:
+            case Instruction.SNE_BYTE:
+            case Instruction.SE_REG:
+            case Instruction.SNE_REG:
+            case Instruction.SKP:
+            case Instruction.SKNP:
+                return new int[] {address + 2, address + 4};
+            case Instruction.LD_KEY:
+            case Instruction.BCD:
+            case Instruction.STORE:
+                return new int[] {address + 2};
+            default:
+                return new int[0];
+        }
+    }
+
+    /**
+     * Returns whether or not the instruction at the specified address is within the specified ROM and far enough from
+     * the end of memory for the addresses after it not to wrap.
+     *
+     * @param rom     The ROM bytes.
+     * @param address The address.
+     * @return Whether or not the instruction can be translated.
+     */
+    private static boolean translatable(final byte[] rom, final int address) {
+        return address >= START && address + 2 <= START + rom.length && address + 4 < Memory.SIZE;
+    }
+
+    /**
+     * Gets the opcode at the specified address of the specified ROM.
+     *
+     * @param rom     The ROM bytes.
+     * @param address The address.
+     * @return The opcode.
+     */
+    private static int opcode(final byte[] rom, final int address) {
+        return (rom[address - START] & 0xFF) << 8 | rom[address - START + 1] & 0xFF;
+    }
+
+    /**
+     * Generates the method executing the specified block.
+     *
+     * @param out   The source to append to.
+     * @param rom   The ROM bytes.
+     * @param block The addresses of the instructions of the block.
+     */
+    private static void block(final StringBuilder out, final byte[] rom, final int[] block) {
+        out.append("\n    private void b").append(hex(block[0])).append("() {\n");
+        out.append("        final int[] v = this.v;\n");
+        for (int j = 0; j < block.length; j++) {
+            final int address = block[j];
+            final int opcode = opcode(rom, address);
+            final int instruction = Instruction.of(opcode);
+            out.append("        // ").append(hex(address)).append(": ").append(String.format("%04X", opcode))
+                    .append(' ').append(Instruction.getName(instruction)).append('\n');
+            instruction(out, instruction, opcode, address);
+            out.append("        update();\n");
+            if (j < block.length - 1)
+                out.append("        if (--n == 0) {\n            pc = ").append(hex(address + 2))
+                        .append(";\n            return;\n        }\n");
+            else if (targets(instruction, opcode, address).length == 0)
+                out.append("        n--;\n        pc = ").append(hex(address + 2)).append(";\n");
+            else
+                out.append("        n--;\n");
+        }
+        out.append("    }\n");
+    }
+
+    /**
+     * Generates the statements executing the specified instruction as {@link Processor} decodes it, setting the program
+     * counter if it's the last of its block.
+     *
+     * @param out         The source to append to.
+     * @param instruction The instruction.
+     * @param opcode      The opcode.
+     * @param address     The address of the instruction.
+     */
+    private static void instruction(final StringBuilder out, final int instruction, final int opcode,
+                                    final int address) {
+        final String x = "v[" + hex((opcode >>> 8) & 0xF) + "]";
+        final String y = "v[" + hex((opcode >>> 4) & 0xF) + "]";
+        final String nn = hex(opcode & 0xFF);
+        final String nnn = hex(opcode & 0xFFF);
+        final String next = hex(address + 2);
+        final String skip = hex(address + 4);
+        switch (instruction) {
+            case Instruction.CLS:
+            case Instruction.RND:
+            case Instruction.DRW:
+            case Instruction.LOAD:
+                line(out, "op(Instruction." + Instruction.getName(instruction) + ", " + hex(opcode) + ");");
+                return;
+            case Instruction.LD_KEY:
+            case Instruction.BCD:
+            case Instruction.STORE:
+                line(out, "op(Instruction." + Instruction.getName(instruction) + ", " + hex(opcode) + ");");
+                line(out, "pc = " + next + ";");
+                return;
+        }
+        line(out, "count(Instruction." + Instruction.getName(instruction) + ");");
+        switch (instruction) {
+            case Instruction.RET:
+                line(out, "pc = ret(" + next + ");");
+                return;
+            case Instruction.JP:
+                if ((opcode & 0xFFF) == address || (opcode & 0xFFF) == address - 4)
+                    line(out, "loop();");
+                line(out, "pc = " + nnn + ";");
+                return;
+            case Instruction.CALL:
+                line(out, "call(" + next + ");");
+                line(out, "pc = " + nnn + ";");
+                return;
+            case Instruction.SE_BYTE:
+                line(out, "pc = " + x + " == " + nn + " ? " + skip + " : " + next + ";");
+                return;
+            case Instruction.SNE_BYTE:
+                line(out, "pc = " + x + " != " + nn + " ? " + skip + " : " + next + ";");
+                return;
+            case Instruction.SE_REG:
+                line(out, "pc = " + x + " == " + y + " ? " + skip + " : " + next + ";");
+                return;
+            case Instruction.SNE_REG:
+                line(out, "pc = " + x + " != " + y + " ? " + skip + " : " + next + ";");
+                return;
+            case Instruction.LD_BYTE:
+                line(out, x + " = " + nn + ";");
+                return;
+            case Instruction.ADD_BYTE:
+                line(out, x + " = (" + x + " + " + nn + ") & 0xFF;");
+                return;
+            case Instruction.LD_REG:
+                line(out, x + " = " + y + ";");
+                return;
+            case Instruction.OR:
+                line(out, x + " = " + x + " | " + y + ";");
+                return;
+            case Instruction.AND:
+                line(out, x + " = " + x + " & " + y + ";");
+                return;
+            case Instruction.XOR:
+                line(out, x + " = " + x + " ^ " + y + ";");
+                return;
+            case Instruction.ADD_REG:
+                line(out, "{");
+                line(out, "    final int sum = " + x + " + " + y + ";");
+                line(out, "    v[0xF] = sum > 0xFF ? 1 : 0;");
+                line(out, "    " + x + " = sum & 0xFF;");
+                line(out, "}");
+                return;
+            case Instruction.SUB:
+                line(out, "v[0xF] = " + x + " > " + y + " ? 1 : 0;");
+                line(out, x + " = (" + x + " - " + y + ") & 0xFF;");
+                return;
+            case Instruction.SHR:
+                line(out, "v[0xF] = " + x + " & 0x1;");
+                line(out, x + " = " + x + " >>> 1;");
+                return;
+            case Instruction.SUBN:
+                line(out, "v[0xF] = " + y + " > " + x + " ? 1 : 0;");
+                line(out, x + " = (" + y + " - " + x + ") & 0xFF;");
+                return;
+            case Instruction.SHL:
+                line(out, "v[0xF] = " + x + " >>> 7;");
+                line(out, x + " = (" + x + " << 1) & 0xFF;");
+                return;
+            case Instruction.LD_I:
+                line(out, "index(" + nnn + ");");
+                return;
+            case Instruction.JP_V0:
+                line(out, "pc = (" + nnn + " + v[0x0]) & 0xFFF;");
+                return;
+            case Instruction.SKP:
+                line(out, "pc = pressed(" + x + ") ? " + skip + " : " + next + ";");
+                return;
+            case Instruction.SKNP:
+                line(out, "pc = pressed(" + x + ") ? " + next + " : " + skip + ";");
+                return;
+            case Instruction.LD_DT:
+                line(out, x + " = delay() & 0xFF;");
+                return;
+            case Instruction.SET_DT:
+                line(out, "delay(" + x + ");");
+                return;
+            case Instruction.SET_ST:
+                line(out, "sound(" + x + ");");
+                return;
+            case Instruction.ADD_I:
+                line(out, "index((index() + " + x + ") & 0xFFF);");
+                return;
+            case Instruction.LD_FONT:
+                line(out, "index(" + x + " * 5);");
+        }
+    }
+
+    /**
+     * Appends the specified statement to the body of a block method.
+     *
+     * @param out       The source to append to.
+     * @param statement The statement.
+     */
+    private static void line(final StringBuilder out, final String statement) {
+        out.append("        ").append(statement).append('\n');
+    }
+
+    /**
+     * Formats the specified number as a hexadecimal literal.
+     *
+     * @param value The number.
+     * @return The literal.
+     */
+    private static String hex(final int value) {
+        return "0x" + Integer.toHexString(value).toUpperCase();
+    }
+
+    /**
+     * The class loader of the generated classes, one per class so classes of unused ROMs can be unloaded.
+     */
+    private static final class Loader extends ClassLoader {
+
+        /**
+         * Constructs a new loader delegating to the loader of the processor.
+         */
+        private Loader() {
+            super(Processor.class.getClassLoader());
+        }
+
+        /**
+         * Defines the class with the specified name from the specified bytes.
+         *
+         * @param name  The binary name of the class.
+         * @param bytes The class file.
+         * @return The class.
+         */
+        private Class<?> define(final String name, final byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}